@@ -0,0 +1,80 @@
+package me.biiee3l.bconfig.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Base for immutable sections that keep their entries in two parallel arrays.
+ *
+ * Subclasses only decide how a key is located; iteration always follows the order the section was built in. Every
+ * write throws {@link UnsupportedOperationException}, {@link Configuration} promotes the section through its
+ * {@link SectionMapStrategy} before mutating it.
+ */
+abstract class ArraySection extends AbstractMap<String, Object> {
+
+    protected final String[] keys;
+    protected final Object[] values;
+
+    /**
+     * @param keys   section keys (no duplicates); the array is owned by this section afterwards
+     * @param values values matching keys by index; the array is owned by this section afterwards
+     */
+    ArraySection(String[] keys, Object[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * @param key key to look up
+     * @return index of key in {@link #keys}, or -1 if absent
+     */
+    protected abstract int indexOf(Object key);
+
+    @Override
+    public Object get(Object key) {
+        int i = indexOf(key);
+        return (i >= 0) ? values[i] : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return keys.length;
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < keys.length;
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        if (next >= keys.length) throw new NoSuchElementException();
+                        int i = next++;
+                        return new SimpleImmutableEntry<>(keys[i], values[i]);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return keys.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package me.biiee3l.bconfig.config;
+
+/**
+ * Immutable array-backed section for small sections built at load time.
+ *
+ * Keys are looked up with a linear scan, which for a handful of keys is far smaller than a
+ * {@link java.util.concurrent.ConcurrentHashMap} and just as fast.
+ */
+final class CompactSection extends ArraySection {
+
+    CompactSection(String[] keys, Object[] values) {
+        super(keys, values);
+    }
+
+    @Override
+    protected int indexOf(Object key) {
+        // keys are usually interned, so try identity before equals
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] == key) return i;
+        }
+        if (key == null) return -1;
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+}
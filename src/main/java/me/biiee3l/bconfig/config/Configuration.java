@@ -1,26 +1,65 @@
 package me.biiee3l.bconfig.config;
 
+import me.biiee3l.bconfig.config.stream.ConfigurationReader;
+import me.biiee3l.bconfig.config.stream.ConfigurationWriter;
+import me.biiee3l.bconfig.config.stream.MapConfigurationWriter;
+
+import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.function.BiFunction;
+import java.util.concurrent.ConcurrentMap;
 import java.util.stream.Collectors;
 
 /**
- * Thread-safe configuration backed by ConcurrentHashMap per-level.
+ * Thread-safe configuration backed by a ConcurrentMap per-level.
  *
  * Characteristics:
- * - Lock-free at global level: uses ConcurrentHashMap and compute/computeIfAbsent for atomic per-key operations.
- * - Does NOT preserve insertion order (use LinkedHashMap version if you need ordering).
+ * - Lock-free at global level: uses ConcurrentMap and compute/computeIfAbsent for atomic per-key operations.
+ * - Does NOT preserve insertion order by default; use {@link SectionMapStrategies#ORDERED} if you need ordering.
+ *   Snapshots and key sets follow the iteration order of the underlying sections.
  * - Provides convenience getters, typed list getters, merge, snapshot (deep copy) and section helpers.
+ * - Trees loaded through {@link #loadRoot(Map)} are deduplicated: keys and small leaf values are interned and
+ *   sections are built through the {@link SectionMapStrategy}, which may make them read-only. Read-only sections are
+ *   promoted to a writable ConcurrentMap on first write. Maps inside lists are not sections: they are loaded as
+ *   mutable LinkedHashMaps, null values included.
+ * - Sections can't hold null values: a {@code key: null} entry of a loaded section is dropped, so
+ *   {@link #contains(String)} is false for it.
+ * - Optional {@code ${...}} reference resolution for String values (see {@link #setReferenceResolution(boolean)}).
+ * - Optional per-path {@link ValueCodec}s (e.g. encryption) applied on set and get; the tree, snapshots and saved
+ *   files hold the encoded form.
+ * - Optional {@link ConfigurationJournal} recording every set/remove/merge/clear, attached by backends that support it.
+ * - Streaming export and import ({@link #write(ConfigurationWriter)}, {@link #merge(ConfigurationReader, boolean)})
+ *   to convert from and to other formats without an intermediate copy of the tree.
  *
- * Note: This implementation keeps nested maps as {@link ConcurrentHashMap} instances when created internally.
+ * Note: This implementation keeps every section it writes to as a {@link ConcurrentMap} created by the strategy
+ * ({@link java.util.concurrent.ConcurrentHashMap} by default).
  */
 public abstract class Configuration implements IConfiguration {
 
+    /**
+     * Strategy used to create and load sections.
+     */
+    private volatile SectionMapStrategy sectionStrategy = SectionMapStrategies.COMPACT;
+
     /**
      * Root map (concurrent).
      */
-    protected ConcurrentHashMap<String, Object> root = new ConcurrentHashMap<>();
+    protected ConcurrentMap<String, Object> root = sectionStrategy.createSection();
+
+    /**
+     * Reference resolver, null while reference resolution is disabled.
+     */
+    private volatile ReferenceResolver resolver;
+
+    /**
+     * Value codecs by exact dotted path.
+     */
+    private final ConcurrentHashMap<String, ValueCodec> codecs = new ConcurrentHashMap<>();
+
+    /**
+     * Change journal, null when changes are not journaled.
+     */
+    private volatile ConfigurationJournal journal;
 
     private static final String EMPTY_KEY = "";
 
@@ -42,56 +81,116 @@ public abstract class Configuration implements IConfiguration {
     }
 
     /**
-     * Put a value at the given path. Intermediate sections are created as ConcurrentHashMap if missing or if existing
+     * Put a value at the given path. Intermediate sections are created as ConcurrentMap if missing or if existing
      * value at that position is not a Map (the old value will be replaced by a map).
      *
      * This method is thread-safe for concurrent access across different branches and keys.
+     * If a {@link ValueCodec} is registered for the path, the encoded value is stored.
      *
      * @param key   dotted path
      * @param value value to set (may be null)
+     * @throws java.io.UncheckedIOException if a journal is attached and the change can't be recorded
      */
-    @SuppressWarnings("unchecked")
     @Override
     public void set(String key, Object value) {
         Objects.requireNonNull(key, "key");
+        ValueCodec codec = codecs.isEmpty() ? null : codecs.get(key);
+        ConfigurationJournal j = journal;
+        if (j != null) j.lock();
+        try {
+            put(key, (codec != null && value != null) ? codec.encode(key, value) : value);
+            // a whole section may have been replaced, encode the plain values it brought in
+            if (value instanceof Map && !codecs.isEmpty()) encodeCodecPaths(root, key);
+            if (j != null) j.appendSet(key, stored(key));
+        } finally {
+            if (j != null) j.unlock();
+            invalidateReferences(key);
+        }
+    }
+
+    /**
+     * Stores a value as-is at the given path, creating intermediate sections.
+     *
+     * @param key   dotted path
+     * @param value value to store
+     */
+    private void put(String key, Object value) {
+        put(root, key, value);
+    }
+
+    /**
+     * Stores a value as-is at the given path of tree, creating intermediate sections.
+     */
+    @SuppressWarnings("unchecked")
+    private void put(ConcurrentMap<String, Object> tree, String key, Object value) {
         String[] keys = splitPath(key);
         if (keys.length == 0) return;
 
         // Traverse and create intermediate maps atomically using compute
-        ConcurrentHashMap<String, Object> current = root;
+        ConcurrentMap<String, Object> current = tree;
         for (int i = 0; i < keys.length - 1; i++) {
             final String k = keys[i];
             Object next = current.compute(k, (kk, existing) -> {
-                if (existing instanceof ConcurrentHashMap) return existing;
-                if (existing instanceof Map) {
-                    // If it's some other Map implementation, convert to ConcurrentHashMap copy
-                    ConcurrentHashMap<String, Object> chm = new ConcurrentHashMap<>();
-                    chm.putAll((Map) existing);
-                    return chm;
-                }
-                // replace non-map value with a new ConcurrentHashMap
-                return new ConcurrentHashMap<String, Object>();
+                // If it's some other Map implementation (e.g. a compact section), convert to a writable copy
+                if (existing instanceof Map) return sectionStrategy.promote((Map<?, ?>) existing);
+                // replace non-map value with a new section
+                return sectionStrategy.createSection();
             });
-            current = (ConcurrentHashMap<String, Object>) next;
+            current = (ConcurrentMap<String, Object>) next;
         }
         // set last key (atomic at that map)
         current.put(keys[keys.length - 1], value);
     }
 
     /**
-     * Get the raw object at the given dotted path. Returns null if not found or if traversal meets non-map before last key.
+     * Get the object at the given dotted path. Returns null if not found or if traversal meets non-map before last key.
+     * When reference resolution is enabled, String values have their {@code ${...}} references resolved.
      *
      * @param key dotted path
      * @return stored object or null
      */
-    @SuppressWarnings("unchecked")
     @Override
     public Object get(String key) {
+        Object value = lookup(key);
+        ReferenceResolver r = resolver;
+        if (r != null && value instanceof String) return r.resolve(key, (String) value);
+        return value;
+    }
+
+    /**
+     * Get the object at the given dotted path decoded by its {@link ValueCodec}, without resolving references.
+     *
+     * @param key dotted path
+     * @return decoded object or null
+     */
+    Object lookup(String key) {
+        Object value = stored(key);
+        if (value == null || codecs.isEmpty()) return value;
+        ValueCodec codec = codecs.get(key);
+        return (codec != null) ? codec.decode(key, value) : value;
+    }
+
+    /**
+     * Get the object stored at the given dotted path, as it is in the tree. Every read goes through here, so a backend
+     * that serves reads from somewhere else than {@link #root} can override it.
+     *
+     * @param key dotted path
+     * @return stored object or null
+     */
+    protected Object stored(String key) {
         Objects.requireNonNull(key, "key");
+        return find(root, key);
+    }
+
+    /**
+     * Get the object stored at the given dotted path of tree.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object find(Map<String, Object> tree, String key) {
         String[] keys = splitPath(key);
         if (keys.length == 0) return null;
 
-        Map<String, Object> current = root;
+        Map<String, Object> current = tree;
         for (int i = 0; i < keys.length - 1; i++) {
             Object next = current.get(keys[i]);
             if (!(next instanceof Map)) return null;
@@ -308,6 +407,7 @@ public abstract class Configuration implements IConfiguration {
         Object value = get(key);
         if (value instanceof List<?>) {
             return ((List<?>) value).stream()
+                    .filter(Objects::nonNull)
                     .map(Object::toString)
                     .collect(Collectors.toList());
         }
@@ -338,7 +438,7 @@ public abstract class Configuration implements IConfiguration {
      *
      * @param path   dotted path
      * @param create whether to create if absent
-     * @return the Map for that section (ConcurrentHashMap) or null if not present and create==false
+     * @return the Map for that section (ConcurrentMap) or null if not present and create==false
      */
     @SuppressWarnings("unchecked")
     public Map<String, Object> getOrCreateSection(String path, boolean create) {
@@ -346,53 +446,20 @@ public abstract class Configuration implements IConfiguration {
         String[] keys = splitPath(path);
         if (keys.length == 0) return null;
 
-        ConcurrentHashMap<String, Object> current = root;
+        ConcurrentMap<String, Object> current = root;
         for (String k : keys) {
             Object next = current.get(k);
-            if (next == null) {
-                if (!create) return null;
-                ConcurrentHashMap<String, Object> created = new ConcurrentHashMap<>();
-                Object prev = current.putIfAbsent(k, created);
-                if (prev instanceof ConcurrentHashMap) {
-                    current = (ConcurrentHashMap<String, Object>) prev;
-                } else if (prev instanceof Map) {
-                    // convert other Map to concurrent
-                    ConcurrentHashMap<String, Object> chm = new ConcurrentHashMap<>();
-                    chm.putAll((Map) prev);
-                    if (current.replace(k, prev, chm)) {
-                        current = chm;
-                    } else {
-                        Object now = current.get(k);
-                        current = (now instanceof ConcurrentHashMap) ? (ConcurrentHashMap<String, Object>) now : chm;
-                    }
-                } else {
-                    // previous was non-map
-                    Object replaced = current.replace(k, prev, created) ? created : current.get(k);
-                    current = (ConcurrentHashMap<String, Object>) replaced;
-                }
-            } else if (next instanceof ConcurrentHashMap) {
-                current = (ConcurrentHashMap<String, Object>) next;
-            } else if (next instanceof Map) {
-                // wrap existing map into concurrent map
-                ConcurrentHashMap<String, Object> chm = new ConcurrentHashMap<>();
-                chm.putAll((Map) next);
-                if (current.replace(k, next, chm)) {
-                    current = chm;
-                } else {
-                    Object now = current.get(k);
-                    current = (now instanceof ConcurrentHashMap) ? (ConcurrentHashMap<String, Object>) now : chm;
-                }
-            } else {
-                // existing value is not a map
-                if (!create) return null;
-                ConcurrentHashMap<String, Object> created = new ConcurrentHashMap<>();
-                if (current.replace(k, next, created)) {
-                    current = created;
-                } else {
-                    Object now = current.get(k);
-                    current = (now instanceof ConcurrentHashMap) ? (ConcurrentHashMap<String, Object>) now : created;
-                }
+            if (!(next instanceof ConcurrentMap)) {
+                // missing or non-map value: only replaced when creating
+                if (!(next instanceof Map) && !create) return null;
+                // promote read-only sections, create missing ones, replace non-map values
+                next = current.compute(k, (kk, existing) -> {
+                    if (existing instanceof Map) return sectionStrategy.promote((Map<?, ?>) existing);
+                    return create ? sectionStrategy.createSection() : existing;
+                });
+                if (!(next instanceof ConcurrentMap)) return null;
             }
+            current = (ConcurrentMap<String, Object>) next;
         }
         return current;
     }
@@ -406,26 +473,54 @@ public abstract class Configuration implements IConfiguration {
      *
      * @param path dotted path
      * @return removed value or null
+     * @throws java.io.UncheckedIOException if a journal is attached and the change can't be recorded
      */
-    @SuppressWarnings("unchecked")
     public Object remove(String path) {
         Objects.requireNonNull(path, "path");
+        Object removed = null;
+        ConfigurationJournal j = journal;
+        if (j != null) j.lock();
+        try {
+            removed = removeStored(root, path);
+            if (removed != null && j != null) j.appendRemove(path);
+        } finally {
+            if (j != null) j.unlock();
+            if (removed != null) invalidateReferences(path);
+        }
+        return removed;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Object removeStored(ConcurrentMap<String, Object> tree, String path) {
         String[] keys = splitPath(path);
         if (keys.length == 0) return null;
-        Map<String, Object> current = root;
+        // Read-only lookup first so that removing a missing key never promotes compact sections
+        if (find(tree, path) == null) return null;
+        ConcurrentMap<String, Object> current = tree;
         for (int i = 0; i < keys.length - 1; i++) {
-            Object next = current.get(keys[i]);
-            if (!(next instanceof Map)) return null;
-            current = (Map<String, Object>) next;
+            Object next = current.computeIfPresent(keys[i],
+                    (k, existing) -> (existing instanceof Map) ? sectionStrategy.promote((Map<?, ?>) existing) : existing);
+            if (!(next instanceof ConcurrentMap)) return null;
+            current = (ConcurrentMap<String, Object>) next;
         }
         return current.remove(keys[keys.length - 1]);
     }
 
     /**
      * Clears the whole configuration.
+     *
+     * @throws java.io.UncheckedIOException if a journal is attached and the change can't be recorded
      */
     public void clear() {
-        root.clear();
+        ConfigurationJournal j = journal;
+        if (j != null) j.lock();
+        try {
+            root.clear();
+            if (j != null) j.appendClear();
+        } finally {
+            if (j != null) j.unlock();
+            invalidateReferences();
+        }
     }
 
     /**
@@ -434,39 +529,63 @@ public abstract class Configuration implements IConfiguration {
      *
      * @param other     source map to merge (may be nested)
      * @param overwrite whether to overwrite existing values
+     * @throws java.io.UncheckedIOException if a journal is attached and the change can't be recorded
      */
-    @SuppressWarnings("unchecked")
     public void merge(Map<String, Object> other, boolean overwrite) {
         Objects.requireNonNull(other, "other");
-        // recursive function to merge into targetMap
-        BiFunction<Map<String, Object>, Map<String, Object>, Void> mergeFn = new BiFunction<>() {
-            @Override
-            public Void apply(Map<String, Object> target, Map<String, Object> src) {
-                for (Map.Entry<String, Object> e : src.entrySet()) {
-                    String k = e.getKey();
-                    Object v = e.getValue();
-                    Object existing = target.get(k);
-                    if (existing instanceof Map && v instanceof Map) {
-                        apply((Map<String, Object>) existing, (Map<String, Object>) v);
-                    } else {
-                        if (!target.containsKey(k) || overwrite) {
-                            if (v instanceof Map) {
-                                // copy nested map into a ConcurrentHashMap
-                                ConcurrentHashMap<String, Object> chm = new ConcurrentHashMap<>();
-                                chm.putAll((Map) v);
-                                target.put(k, chm);
-                            } else if (v instanceof List<?>) {
-                                target.put(k, new ArrayList<>((List<?>) v));
-                            } else {
-                                target.put(k, v);
-                            }
-                        }
-                    }
+        List<String> written = new ArrayList<>();
+        ConfigurationJournal j = journal;
+        if (j != null) j.lock();
+        try {
+            merge(root, null, other, overwrite, j, written);
+        } finally {
+            if (j != null) j.unlock();
+            for (String path : written) {
+                invalidateReferences(path);
+            }
+        }
+    }
+
+    /**
+     * Recursively merges src into target, the section at prefix. Every value written is encoded by its codecs and
+     * journaled as a single set, so the journal grows with the size of the change, not of the merged sections.
+     *
+     * @param target  section to merge into
+     * @param prefix  dotted path of target, null for the root
+     * @param src     source map
+     * @param j       journal to record to, or null
+     * @param written receives the path of every value written
+     */
+    @SuppressWarnings("unchecked")
+    private void merge(Map<String, Object> target, String prefix, Map<String, Object> src, boolean overwrite,
+                       ConfigurationJournal j, List<String> written) {
+        for (Map.Entry<String, Object> e : src.entrySet()) {
+            String k = e.getKey();
+            Object v = e.getValue();
+            String path = (prefix == null) ? k : prefix + "." + k;
+            Object existing = target.get(k);
+            if (existing instanceof Map && v instanceof Map) {
+                // promote read-only sections before merging into them
+                Object section = target.compute(k, (kk, cur) -> (cur instanceof Map) ? sectionStrategy.promote((Map<?, ?>) cur) : cur);
+                if (section instanceof Map) {
+                    merge((Map<String, Object>) section, path, (Map<String, Object>) v, overwrite, j, written);
+                }
+            } else if (!target.containsKey(k) || overwrite) {
+                if (v instanceof Map) {
+                    // copy nested map into a writable section
+                    ConcurrentMap<String, Object> section = sectionStrategy.createSection();
+                    section.putAll((Map<String, Object>) v);
+                    target.put(k, section);
+                } else if (v instanceof List<?>) {
+                    target.put(k, new ArrayList<>((List<?>) v));
+                } else {
+                    target.put(k, v);
                 }
-                return null;
+                if (!codecs.isEmpty()) encodeCodecPaths(root, path);
+                written.add(path);
+                if (j != null) j.appendSet(path, target.get(k));
             }
-        };
-        mergeFn.apply(root, other);
+        }
     }
 
     // --------------------
@@ -489,7 +608,7 @@ public abstract class Configuration implements IConfiguration {
      * @return set of top-level keys
      */
     public Set<String> keySet() {
-        return new HashSet<>(root.keySet());
+        return new LinkedHashSet<>(root.keySet());
     }
 
     /**
@@ -505,24 +624,466 @@ public abstract class Configuration implements IConfiguration {
         }
         Object v = get(path);
         if (v instanceof Map<?, ?>) {
-            return ((Map<?, ?>) v).keySet().stream().map(Object::toString).collect(Collectors.toSet());
+            return ((Map<?, ?>) v).keySet().stream().map(Object::toString).collect(Collectors.toCollection(LinkedHashSet::new));
         }
         return Collections.emptySet();
     }
 
+    // --------------------
+    // Streaming
+    // --------------------
+
+    /**
+     * Streams the tree to a writer, e.g. to convert it to another format, without taking a snapshot first. Values are
+     * written in their stored form, like {@link #toMap()} returns them. Sections are walked live, so concurrent writes
+     * may or may not be seen, as with iterating a ConcurrentMap.
+     *
+     * @param out receiver of the tree
+     * @throws IOException if the writer fails
+     */
+    public void write(ConfigurationWriter out) throws IOException {
+        out.value(root);
+    }
+
+    /**
+     * Merges a streamed tree into this configuration, with the same rules as {@link #merge(Map, boolean)}. Every leaf
+     * is applied through {@link #set(String, Object)} as soon as it is read, so only the current path (and the list
+     * being read, if any) is held in memory; codecs, references and the journal see each leaf as a single set.
+     *
+     * @param in        source of the tree
+     * @param overwrite whether to overwrite existing values
+     * @throws IOException if the source can't be read
+     */
+    public void merge(ConfigurationReader in, boolean overwrite) throws IOException {
+        Objects.requireNonNull(in, "in");
+        in.read(new Importer(overwrite));
+    }
+
+    /**
+     * Applies streamed events to this configuration. Lists are collected whole and set as one value.
+     */
+    private final class Importer implements ConfigurationWriter {
+
+        private final boolean overwrite;
+        /** Paths of the open sections, innermost first; the root is the empty path. */
+        private final Deque<String> sections = new ArrayDeque<>();
+        private String key;
+        /** Depth inside a section whose existing value is kept, 0 when not skipping. */
+        private int skipped;
+        /** Builds the list being read, null when not inside a list. */
+        private MapConfigurationWriter list;
+
+        Importer(boolean overwrite) {
+            this.overwrite = overwrite;
+        }
+
+        private String path() {
+            String parent = sections.peek();
+            if (key == null) throw new IllegalStateException("Value without a key");
+            return (parent == null || parent.isEmpty()) ? key : parent + "." + key;
+        }
+
+        @Override
+        public void beginSection() {
+            if (list != null) {
+                list.beginSection();
+            } else if (skipped > 0) {
+                skipped++;
+            } else if (sections.isEmpty()) {
+                sections.push("");
+            } else {
+                String path = path();
+                Object existing = stored(path);
+                if (existing != null && !(existing instanceof Map)) {
+                    if (!overwrite) {
+                        skipped = 1;
+                        return;
+                    }
+                    existing = null;
+                }
+                // keep empty sections of the source
+                if (existing == null) set(path, sectionStrategy.createSection());
+                sections.push(path);
+            }
+        }
+
+        @Override
+        public void key(String key) {
+            if (list != null) {
+                list.key(key);
+            } else if (skipped == 0) {
+                this.key = key;
+            }
+        }
+
+        @Override
+        public void endSection() {
+            if (list != null) {
+                list.endSection();
+            } else if (skipped > 0) {
+                skipped--;
+            } else {
+                sections.pop();
+            }
+        }
+
+        @Override
+        public void beginList() {
+            if (list == null && skipped > 0) {
+                skipped++;
+                return;
+            }
+            if (list == null) list = new MapConfigurationWriter();
+            list.beginList();
+        }
+
+        @Override
+        public void endList() {
+            if (list == null) {
+                skipped--;
+                return;
+            }
+            list.endList();
+            if (list.isComplete()) {
+                Object value = list.getValue();
+                list = null;
+                assign(value);
+            }
+        }
+
+        @Override
+        public void scalar(Object value) {
+            if (list != null) {
+                list.scalar(value);
+            } else if (skipped == 0) {
+                assign(value);
+            }
+        }
+
+        private void assign(Object value) {
+            if (sections.isEmpty()) throw new IllegalStateException("Value outside of the top-level section");
+            String path = path();
+            if (value != null && (overwrite || !contains(path))) set(path, value);
+        }
+    }
+
+    // --------------------
+    // References
+    // --------------------
+
+    /**
+     * Enables or disables resolution of {@code ${...}} references in String values returned by {@link #get(String)}
+     * and the typed getters. Supported forms are {@code ${other.path}}, {@code ${env:NAME}} and {@code ${sys:name}};
+     * {@code $${...}} yields a literal {@code ${...}}.
+     *
+     * References are parsed once and resolved values are memoized; set, remove, merge and load only invalidate the
+     * values that depend on the touched paths. Writes made directly to maps returned by
+     * {@link #getOrCreateSection(String, boolean)} bypass this tracking, call {@link #invalidateReferences()} after
+     * them. Enabling resolution and every later load fail with {@link ConfigurationReferenceException} when the
+     * references form a cycle.
+     *
+     * @param enabled whether references are resolved
+     */
+    public void setReferenceResolution(boolean enabled) {
+        if (!enabled) {
+            resolver = null;
+            return;
+        }
+        ReferenceResolver r = new ReferenceResolver(this);
+        r.rebuild(root);
+        resolver = r;
+    }
+
+    /**
+     * @return true if {@code ${...}} references are resolved
+     */
+    public boolean isReferenceResolution() {
+        return resolver != null;
+    }
+
+    /**
+     * Drops every memoized reference value, e.g. after system properties changed.
+     */
+    public void invalidateReferences() {
+        ReferenceResolver r = resolver;
+        if (r != null) r.invalidateAll();
+    }
+
+    private void invalidateReferences(String path) {
+        ReferenceResolver r = resolver;
+        if (r != null) r.invalidate(path);
+    }
+
+    // --------------------
+    // Value codecs
+    // --------------------
+
+    /**
+     * Registers a codec for an exact dotted path, e.g. an encrypting one. The value currently stored there is encoded
+     * right away, and so are values later brought in by set, merge or load, so that save() only ever writes the encoded
+     * form. get() and the typed getters return the decoded value. Re-encoding the current value is journaled like a
+     * set.
+     *
+     * @param path  dotted path of a leaf value
+     * @param codec codec to apply
+     * @throws java.io.UncheckedIOException if a journal is attached and the change can't be recorded
+     */
+    public void setValueCodec(String path, ValueCodec codec) {
+        Objects.requireNonNull(path, "path");
+        Objects.requireNonNull(codec, "codec");
+        ConfigurationJournal j = journal;
+        if (j != null) j.lock();
+        try {
+            codecs.put(path, codec);
+            if (encode(root, path, codec) && j != null) j.appendSet(path, stored(path));
+        } finally {
+            if (j != null) j.unlock();
+        }
+    }
+
+    /**
+     * Unregisters the codec of a path and stores its value back in decoded form, journaled like a set.
+     *
+     * @param path dotted path
+     * @return the removed codec, or null if there was none
+     * @throws java.io.UncheckedIOException if a journal is attached and the change can't be recorded
+     */
+    public ValueCodec removeValueCodec(String path) {
+        Objects.requireNonNull(path, "path");
+        ConfigurationJournal j = journal;
+        if (j != null) j.lock();
+        try {
+            ValueCodec codec = codecs.remove(path);
+            if (codec != null) {
+                Object value = stored(path);
+                if (value != null && codec.isEncoded(value)) {
+                    Object decoded = codec.decode(path, value);
+                    put(path, decoded);
+                    if (j != null) j.appendSet(path, decoded);
+                }
+            }
+            return codec;
+        } finally {
+            if (j != null) j.unlock();
+        }
+    }
+
+    /**
+     * Encodes the plain values found at codec paths of tree equal to or below prefix.
+     *
+     * @param tree   root of the tree to encode
+     * @param prefix dotted path, or null for every codec path
+     */
+    private void encodeCodecPaths(ConcurrentMap<String, Object> tree, String prefix) {
+        for (Map.Entry<String, ValueCodec> e : codecs.entrySet()) {
+            String path = e.getKey();
+            if (prefix == null || path.equals(prefix) || path.startsWith(prefix + ".")) {
+                encode(tree, path, e.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return true if a plain value was found at path and encoded
+     */
+    private boolean encode(ConcurrentMap<String, Object> tree, String path, ValueCodec codec) {
+        Object value = find(tree, path);
+        if (value == null || value instanceof Map || value instanceof List || codec.isEncoded(value)) return false;
+        put(tree, path, codec.encode(path, value));
+        return true;
+    }
+
+    // --------------------
+    // Journal
+    // --------------------
+
+    /**
+     * @return the journal changes are recorded to, or null
+     */
+    protected ConfigurationJournal getJournal() {
+        return journal;
+    }
+
+    /**
+     * Attaches a journal: from now on every set, remove, merge and clear appends a record to it, and so does every
+     * value re-encoded by {@link #setValueCodec} or decoded by {@link #removeValueCodec}. Writes made directly to
+     * maps returned by {@link #getOrCreateSection(String, boolean)} are not recorded.
+     *
+     * @param journal journal to record to, or null to stop recording
+     */
+    protected void setJournal(ConfigurationJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Stores a replayed value as-is in a tree being loaded (it already is in stored form).
+     */
+    void replaySet(ConcurrentMap<String, Object> tree, String path, Object stored) {
+        if (stored == null) {
+            removeStored(tree, path);
+        } else {
+            put(tree, path, stored);
+        }
+    }
+
+    /**
+     * Removes a replayed path from a tree being loaded.
+     */
+    void replayRemove(ConcurrentMap<String, Object> tree, String path) {
+        removeStored(tree, path);
+    }
+
+    // --------------------
+    // Section strategy
+    // --------------------
+
+    /**
+     * @return the strategy used to create and load sections
+     */
+    public SectionMapStrategy getSectionMapStrategy() {
+        return sectionStrategy;
+    }
+
+    /**
+     * Changes the strategy used to create and load sections. The current tree is rebuilt with the new strategy, so
+     * this should be called before the configuration is shared between threads (typically right before load()).
+     *
+     * @param strategy section strategy
+     */
+    public void setSectionMapStrategy(SectionMapStrategy strategy) {
+        this.sectionStrategy = Objects.requireNonNull(strategy, "strategy");
+        loadRoot(root);
+    }
+
+    // --------------------
+    // Helpers: loading
+    // --------------------
+
+    /**
+     * Replaces the root with a deduplicated copy of a freshly parsed tree. Keys and small leaf values are interned
+     * through a shared weak pool and nested sections are built through {@link SectionMapStrategy#loadedSection}.
+     * Null leaves are dropped since concurrent maps cannot hold them. When reference resolution is enabled, the
+     * references of the new tree are re-parsed and checked for cycles.
+     *
+     * @param loaded parsed tree, or null for an empty source
+     * @throws ConfigurationReferenceException if reference resolution is enabled and the new tree has a cycle; the
+     *                                         current tree is left untouched
+     */
+    protected void loadRoot(Map<?, ?> loaded) {
+        install(deduplicateRoot(loaded));
+    }
+
+    /**
+     * Like {@link #loadRoot(Map)}, replaying the records of a journal over the parsed tree without recording them
+     * again. The new tree is fully built, encoded and checked before it replaces the root, so a load that fails leaves
+     * the current tree and reference resolution untouched.
+     *
+     * @param loaded  parsed tree of the snapshot the journal belongs to, or null for an empty source
+     * @param journal journal to replay, or null
+     * @throws IOException if the journal can't be read
+     * @throws ConfigurationReferenceException if reference resolution is enabled and the new tree has a cycle
+     */
+    protected void loadRoot(Map<?, ?> loaded, ConfigurationJournal journal) throws IOException {
+        ConcurrentMap<String, Object> fresh = deduplicateRoot(loaded);
+        if (journal != null) journal.replay(this, fresh);
+        install(fresh);
+    }
+
+    /**
+     * Encodes codec paths of a new tree and checks its references, then makes it the root. Nothing is changed if the
+     * check fails.
+     */
+    private void install(ConcurrentMap<String, Object> fresh) {
+        if (!codecs.isEmpty()) encodeCodecPaths(fresh, null);
+        ReferenceResolver r = null;
+        if (resolver != null) {
+            r = new ReferenceResolver(this);
+            r.rebuild(fresh);
+        }
+        this.root = fresh;
+        if (r != null) resolver = r;
+    }
+
+    private ConcurrentMap<String, Object> deduplicateRoot(Map<?, ?> loaded) {
+        ConcurrentMap<String, Object> fresh = sectionStrategy.createSection();
+        if (loaded != null) {
+            for (Map.Entry<?, ?> e : loaded.entrySet()) {
+                if (e.getValue() == null) continue;
+                fresh.put(ValueInterner.internKey(String.valueOf(e.getKey())), deduplicate(e.getValue()));
+            }
+        }
+        return fresh;
+    }
+
+    private Object deduplicate(Object value) {
+        if (value instanceof Map<?, ?>) {
+            return deduplicateSection((Map<?, ?>) value);
+        }
+        if (value instanceof List<?>) {
+            return deduplicateList((List<?>) value);
+        }
+        return ValueInterner.internValue(value);
+    }
+
+    /**
+     * Copies a list, interning its leaves. Maps inside it can't be reached by a path and so are never promoted: they
+     * are copied into mutable LinkedHashMaps instead of sections.
+     */
+    private static List<Object> deduplicateList(List<?> list) {
+        List<Object> copy = new ArrayList<>(list.size());
+        for (Object item : list) {
+            copy.add(deduplicateElement(item));
+        }
+        return copy;
+    }
+
+    private static Object deduplicateElement(Object value) {
+        if (value instanceof Map<?, ?>) {
+            Map<?, ?> map = (Map<?, ?>) value;
+            Map<Object, Object> copy = new LinkedHashMap<>(Math.max(4, (int) (map.size() / .75f) + 1));
+            for (Map.Entry<?, ?> e : map.entrySet()) {
+                Object k = e.getKey();
+                copy.put((k instanceof String) ? ValueInterner.internKey((String) k) : k, deduplicateElement(e.getValue()));
+            }
+            return copy;
+        }
+        if (value instanceof List<?>) {
+            return deduplicateList((List<?>) value);
+        }
+        return ValueInterner.internValue(value);
+    }
+
+    private Map<String, Object> deduplicateSection(Map<?, ?> source) {
+        String[] keys = new String[source.size()];
+        Object[] values = new Object[source.size()];
+        int n = 0;
+        for (Map.Entry<?, ?> e : source.entrySet()) {
+            if (e.getValue() == null) continue;
+            keys[n] = ValueInterner.internKey(String.valueOf(e.getKey()));
+            values[n] = deduplicate(e.getValue());
+            n++;
+        }
+        if (n < keys.length) {
+            keys = Arrays.copyOf(keys, n);
+            values = Arrays.copyOf(values, n);
+        }
+        return sectionStrategy.loadedSection(keys, values);
+    }
+
     // --------------------
     // Helpers: deep copy
     // --------------------
 
     /**
-     * Deep-copies a map into an immutable HashMap. Nested maps and lists are copied recursively.
+     * Deep-copies a map into an immutable LinkedHashMap, keeping the source iteration order. Nested maps and lists are
+     * copied recursively.
      *
      * @param source source map
      * @return unmodifiable deep copy
      */
     @SuppressWarnings("unchecked")
     protected static Map<String, Object> deepCopyMap(Map<String, Object> source) {
-        Map<String, Object> copy = new HashMap<>();
+        Map<String, Object> copy = new LinkedHashMap<>();
         for (Map.Entry<String, Object> e : source.entrySet()) {
             Object v = e.getValue();
             if (v instanceof Map<?, ?>) {
@@ -0,0 +1,444 @@
+package me.biiee3l.bconfig.config;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Append-only change log of a {@link Configuration}, one JSON record per line:
+ * <pre>
+ * {"op":"set","path":"a.b","value":...,"types":...}
+ * {"op":"remove","path":"a.b"}
+ * {"op":"clear"}
+ * </pre>
+ * Values are recorded in their stored form (e.g. already encrypted by a {@link ValueCodec}). JSON alone would bring
+ * every integer back as a Long and every Date as a String, so {@code types} mirrors the shape of the value and tags
+ * each leaf whose type JSON doesn't keep (e.g. {@code "int"} for a scalar, {@code {"port":"int"}} for a section);
+ * replay rebuilds those leaves with their original type. A merge is recorded as one
+ * set per leaf or new section it wrote, so every record is an idempotent assignment and a replay over a newer snapshot
+ * converges to the same state.
+ *
+ * The journal lives next to the snapshot it belongs to. Compaction rotates it to a {@code .compacting} file, writes a
+ * fresh snapshot and deletes the rotated file; {@link #replay(Configuration)} replays a left-over rotated file first,
+ * so a crash in the middle of a compaction loses nothing. A torn last line is skipped.
+ *
+ * Mutations and their records are serialized through {@link #lock()} so the log order always matches the order the
+ * tree was written in. A record is appended right after its change, before the mutating call returns; if it can't be
+ * written the call throws an {@link UncheckedIOException} and the change, still applied in memory, is not durable.
+ * Records are written straight to the file, so they survive a crash of the JVM; in sync mode every record is also
+ * forced to the storage device ({@link FileChannel#force(boolean)}) so that it survives a power loss or an OS crash,
+ * at the cost of one disk flush per change.
+ */
+public class ConfigurationJournal implements Closeable {
+
+    /**
+     * Writes a full snapshot of the tree to the persistent target (e.g. the YAML file).
+     */
+    @FunctionalInterface
+    public interface SnapshotWriter {
+        void write(Map<String, Object> snapshot) throws IOException;
+    }
+
+    private static final String OP = "op";
+    private static final String PATH = "path";
+    private static final String VALUE = "value";
+    private static final String TYPES = "types";
+
+    private static final Gson GSON = new GsonBuilder().disableHtmlEscaping().create();
+
+    private final File file;
+    private final File rotated;
+    private final boolean sync;
+    private final ReentrantLock lock = new ReentrantLock();
+    private FileChannel channel;
+    private long size;
+    /**
+     * True after a failed append, which may have left a torn line: the next record starts on a new line.
+     */
+    private boolean torn;
+
+    /**
+     * @param file journal file, created on first append
+     */
+    public ConfigurationJournal(File file) {
+        this(file, false);
+    }
+
+    /**
+     * @param file journal file, created on first append
+     * @param sync whether every record is forced to the storage device before the change returns
+     */
+    public ConfigurationJournal(File file, boolean sync) {
+        this.file = file;
+        this.rotated = new File(file.getPath() + ".compacting");
+        this.sync = sync;
+        this.size = file.length();
+    }
+
+    /**
+     * @return journal file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return true if every record is forced to the storage device
+     */
+    public boolean isSync() {
+        return sync;
+    }
+
+    /**
+     * @return bytes in the current journal file
+     */
+    public long size() {
+        lock.lock();
+        try {
+            return size;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void lock() {
+        lock.lock();
+    }
+
+    void unlock() {
+        lock.unlock();
+    }
+
+    // --------------------
+    // Records
+    // --------------------
+
+    void appendSet(String path, Object stored) {
+        JsonObject record = new JsonObject();
+        record.addProperty(OP, "set");
+        record.addProperty(PATH, path);
+        record.add(VALUE, encode(stored));
+        JsonElement types = types(stored);
+        if (types != null) record.add(TYPES, types);
+        append(record);
+    }
+
+    void appendRemove(String path) {
+        JsonObject record = new JsonObject();
+        record.addProperty(OP, "remove");
+        record.addProperty(PATH, path);
+        append(record);
+    }
+
+    void appendClear() {
+        JsonObject record = new JsonObject();
+        record.addProperty(OP, "clear");
+        append(record);
+    }
+
+    /**
+     * @throws UncheckedIOException if the record can't be written (or forced, in sync mode)
+     */
+    private void append(JsonObject record) {
+        String line = GSON.toJson(record) + "\n";
+        lock.lock();
+        try {
+            if (torn) line = "\n" + line;
+            if (channel == null) {
+                if (file.getParentFile() != null) file.getParentFile().mkdirs();
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                        StandardOpenOption.APPEND);
+            }
+            ByteBuffer bytes = ByteBuffer.wrap(line.getBytes(StandardCharsets.UTF_8));
+            int length = bytes.remaining();
+            torn = true;
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (sync) channel.force(false);
+            torn = false;
+            size += length;
+        } catch (IOException e) {
+            closeQuietly();
+            throw new UncheckedIOException("Can't append to journal " + file, e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // --------------------
+    // Replay
+    // --------------------
+
+    /**
+     * Applies every record of a left-over rotated journal and then of the journal itself to a tree being loaded.
+     *
+     * @param target configuration the tree is loaded into
+     * @param tree   root of the tree being loaded
+     * @throws IOException if a journal file can't be read
+     */
+    void replay(Configuration target, ConcurrentMap<String, Object> tree) throws IOException {
+        replay(rotated, target, tree);
+        replay(file, target, tree);
+    }
+
+    private static void replay(File source, Configuration target, ConcurrentMap<String, Object> tree)
+            throws IOException {
+        if (!source.exists()) return;
+        try (BufferedReader reader = Files.newBufferedReader(source.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                JsonObject record;
+                try {
+                    record = JsonParser.parseString(line).getAsJsonObject();
+                } catch (JsonParseException | IllegalStateException e) {
+                    // torn write at the end of the log
+                    continue;
+                }
+                String op = string(record.get(OP));
+                String path = string(record.get(PATH));
+                if ("set".equals(op) && path != null) {
+                    target.replaySet(tree, path, decode(record.get(VALUE), record.get(TYPES)));
+                } else if ("remove".equals(op) && path != null) {
+                    target.replayRemove(tree, path);
+                } else if ("clear".equals(op)) {
+                    tree.clear();
+                }
+            }
+        }
+    }
+
+    private static String string(JsonElement element) {
+        return (element != null && element.isJsonPrimitive()) ? element.getAsString() : null;
+    }
+
+    // --------------------
+    // Values
+    // --------------------
+
+    private static JsonElement encode(Object value) {
+        if (value instanceof Map) {
+            JsonObject object = new JsonObject();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                object.add(String.valueOf(e.getKey()), encode(e.getValue()));
+            }
+            return object;
+        }
+        if (value instanceof Collection) {
+            JsonArray array = new JsonArray();
+            for (Object item : (Collection<?>) value) {
+                array.add(encode(item));
+            }
+            return array;
+        }
+        if (value instanceof Date) return new JsonPrimitive(((Date) value).getTime());
+        return GSON.toJsonTree(value);
+    }
+
+    /**
+     * @return tags of the leaves of value that JSON doesn't bring back as they were, in the shape of value, or null if
+     * there are none
+     */
+    private static JsonElement types(Object value) {
+        if (value instanceof Map) {
+            JsonObject object = new JsonObject();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                JsonElement type = types(e.getValue());
+                if (type != null) object.add(String.valueOf(e.getKey()), type);
+            }
+            return (object.size() > 0) ? object : null;
+        }
+        if (value instanceof Collection) {
+            JsonArray array = new JsonArray();
+            boolean tagged = false;
+            for (Object item : (Collection<?>) value) {
+                JsonElement type = types(item);
+                tagged |= type != null;
+                array.add((type != null) ? type : JsonNull.INSTANCE);
+            }
+            return tagged ? array : null;
+        }
+        String tag = tag(value);
+        return (tag != null) ? new JsonPrimitive(tag) : null;
+    }
+
+    /**
+     * @return tag of a scalar replay would otherwise read back as another type, null for Strings, Booleans, Longs and
+     * Doubles
+     */
+    private static String tag(Object value) {
+        if (value instanceof Integer) return "int";
+        if (value instanceof Short) return "short";
+        if (value instanceof Byte) return "byte";
+        if (value instanceof Float) return "float";
+        if (value instanceof BigInteger) return "bigint";
+        if (value instanceof BigDecimal) return "bigdec";
+        if (value instanceof Date) return "date";
+        return null;
+    }
+
+    private static Object decode(JsonElement value, JsonElement type) {
+        if (value == null || value.isJsonNull()) return null;
+        if (value.isJsonObject()) {
+            JsonObject types = (type != null && type.isJsonObject()) ? type.getAsJsonObject() : null;
+            Map<String, Object> map = new LinkedHashMap<>();
+            for (Map.Entry<String, JsonElement> e : value.getAsJsonObject().entrySet()) {
+                map.put(e.getKey(), decode(e.getValue(), (types != null) ? types.get(e.getKey()) : null));
+            }
+            return map;
+        }
+        if (value.isJsonArray()) {
+            JsonArray types = (type != null && type.isJsonArray()) ? type.getAsJsonArray() : null;
+            JsonArray array = value.getAsJsonArray();
+            List<Object> list = new ArrayList<>(array.size());
+            for (int i = 0; i < array.size(); i++) {
+                list.add(decode(array.get(i), (types != null && i < types.size()) ? types.get(i) : null));
+            }
+            return list;
+        }
+        JsonPrimitive primitive = value.getAsJsonPrimitive();
+        String tag = string(type);
+        if (tag != null && primitive.isNumber()) {
+            switch (tag) {
+                case "int":
+                    return primitive.getAsInt();
+                case "short":
+                    return primitive.getAsShort();
+                case "byte":
+                    return primitive.getAsByte();
+                case "float":
+                    return primitive.getAsFloat();
+                case "bigint":
+                    return primitive.getAsBigInteger();
+                case "bigdec":
+                    return primitive.getAsBigDecimal();
+                case "date":
+                    return new Date(primitive.getAsLong());
+                default:
+                    break;
+            }
+        }
+        if (primitive.isBoolean()) return primitive.getAsBoolean();
+        if (primitive.isString()) return primitive.getAsString();
+        String number = primitive.getAsString();
+        try {
+            return Long.parseLong(number);
+        } catch (NumberFormatException e) {
+            return Double.parseDouble(number);
+        }
+    }
+
+    // --------------------
+    // Compaction
+    // --------------------
+
+    /**
+     * Folds the journal into a new snapshot. The snapshot is taken and the journal rotated under the lock, so no write
+     * can slip between them; the snapshot itself is written without holding the lock, while new records go to a fresh
+     * journal file. The rotated file is deleted once the snapshot has been written.
+     *
+     * @param target configuration this journal belongs to
+     * @param writer writes the snapshot to the persistent target
+     * @throws IOException if the journal can't be rotated or the snapshot can't be written
+     */
+    public void compact(Configuration target, SnapshotWriter writer) throws IOException {
+        Map<String, Object> snapshot;
+        lock.lock();
+        try {
+            snapshot = target.toMap();
+            rotate();
+        } finally {
+            lock.unlock();
+        }
+        writer.write(snapshot);
+        Files.deleteIfExists(rotated.toPath());
+    }
+
+    /**
+     * Moves the current journal aside so that new records start a fresh file.
+     */
+    private void rotate() throws IOException {
+        closeChannel();
+        if (file.exists()) {
+            if (rotated.exists()) {
+                // an earlier compaction failed before writing its snapshot: keep its records first
+                Files.write(rotated.toPath(), Files.readAllBytes(file.toPath()), StandardOpenOption.APPEND);
+                Files.delete(file.toPath());
+            } else {
+                Files.move(file.toPath(), rotated.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Closes the journal and deletes its files. Only safe once the whole tree has been written to a snapshot.
+     *
+     * @throws IOException if a file can't be deleted
+     */
+    public void delete() throws IOException {
+        lock.lock();
+        try {
+            closeChannel();
+            Files.deleteIfExists(file.toPath());
+            Files.deleteIfExists(rotated.toPath());
+            size = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void closeChannel() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            closeChannel();
+        } catch (IOException ignored) {
+            channel = null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            closeChannel();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
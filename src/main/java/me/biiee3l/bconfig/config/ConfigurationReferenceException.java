@@ -0,0 +1,13 @@
+package me.biiee3l.bconfig.config;
+
+/**
+ * Thrown when {@code ${...}} references in a configuration cannot be resolved, e.g. because they form a cycle.
+ */
+public class ConfigurationReferenceException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ConfigurationReferenceException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,47 @@
+package me.biiee3l.bconfig.config;
+
+/**
+ * Immutable open-addressing section for larger read-mostly sections built at load time.
+ *
+ * Entries stay in insertion-ordered arrays; a power-of-two table of indexes resolved with linear probing points into
+ * them. The whole section costs three arrays instead of one node object per entry.
+ */
+final class HashedSection extends ArraySection {
+
+    /**
+     * Slot -> index into keys plus one; 0 marks an empty slot.
+     */
+    private final int[] table;
+    private final int mask;
+
+    HashedSection(String[] keys, Object[] values) {
+        super(keys, values);
+        int capacity = Integer.highestOneBit(Math.max(2, keys.length * 2 - 1)) << 1;
+        this.table = new int[capacity];
+        this.mask = capacity - 1;
+        for (int i = 0; i < keys.length; i++) {
+            int slot = spread(keys[i].hashCode()) & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = i + 1;
+        }
+    }
+
+    private static int spread(int h) {
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    protected int indexOf(Object key) {
+        if (key == null) return -1;
+        int slot = spread(key.hashCode()) & mask;
+        int index;
+        while ((index = table[slot]) != 0) {
+            String k = keys[index - 1];
+            if (k == key || k.equals(key)) return index - 1;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+}
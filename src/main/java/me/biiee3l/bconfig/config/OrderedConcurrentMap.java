@@ -0,0 +1,303 @@
+package me.biiee3l.bconfig.config;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Concurrent map that iterates in insertion order.
+ *
+ * Lookups go through a {@link ConcurrentHashMap} index, so reads are lock-free and cost the same as a plain
+ * ConcurrentHashMap plus one field read. Every entry also carries an insertion sequence number and is registered in a
+ * {@link ConcurrentSkipListMap} ordered by it, which is what iteration walks. Replacing the value of an existing key
+ * keeps its position; removing and re-adding a key moves it to the end.
+ *
+ * All mutations run inside {@link ConcurrentHashMap#compute} on the index, so they are atomic per key. Iteration is
+ * weakly consistent, like ConcurrentHashMap's. Null keys and values are rejected.
+ *
+ * @param <K> key type
+ * @param <V> value type
+ */
+public class OrderedConcurrentMap<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    private static final class Node<K, V> {
+        final long seq;
+        final K key;
+        volatile V value;
+
+        Node(long seq, K key, V value) {
+            this.seq = seq;
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    private final ConcurrentHashMap<K, Node<K, V>> index;
+    private final ConcurrentSkipListMap<Long, Node<K, V>> order = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    public OrderedConcurrentMap() {
+        this.index = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @param initialCapacity expected number of entries
+     */
+    public OrderedConcurrentMap(int initialCapacity) {
+        this.index = new ConcurrentHashMap<>(initialCapacity);
+    }
+
+    // --------------------
+    // Reads
+    // --------------------
+
+    @Override
+    public V get(Object key) {
+        Node<K, V> node = index.get(key);
+        return (node != null) ? node.value : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return index.containsKey(key);
+    }
+
+    @Override
+    public int size() {
+        return index.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return index.isEmpty();
+    }
+
+    // --------------------
+    // Writes
+    // --------------------
+
+    /**
+     * Core mutation: applies fn to the current value of key atomically. A null result removes the entry.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> fn) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(fn, "fn");
+        Object[] result = new Object[1];
+        index.compute(key, (k, node) -> {
+            V newValue = fn.apply(k, (node != null) ? node.value : null);
+            result[0] = newValue;
+            return update(k, node, newValue);
+        });
+        return (V) result[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        Object[] previous = new Object[1];
+        index.compute(key, (k, node) -> {
+            if (node != null) previous[0] = node.value;
+            return update(k, node, value);
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V putIfAbsent(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        Object[] previous = new Object[1];
+        index.compute(key, (k, node) -> {
+            if (node != null) {
+                previous[0] = node.value;
+                return node;
+            }
+            return update(k, null, value);
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> fn) {
+        Objects.requireNonNull(fn, "fn");
+        V existing = get(key);
+        if (existing != null) return existing;
+        return compute(key, (k, v) -> (v != null) ? v : fn.apply(k));
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> fn) {
+        Objects.requireNonNull(fn, "fn");
+        if (!containsKey(key)) return null;
+        return compute(key, (k, v) -> (v != null) ? fn.apply(k, v) : null);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> fn) {
+        Objects.requireNonNull(value, "value");
+        Objects.requireNonNull(fn, "fn");
+        return compute(key, (k, v) -> (v == null) ? value : fn.apply(v, value));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        if (key == null) return null;
+        Object[] previous = new Object[1];
+        index.computeIfPresent((K) key, (k, node) -> {
+            previous[0] = node.value;
+            return update(k, node, null);
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key, Object value) {
+        if (key == null || value == null) return false;
+        boolean[] removed = new boolean[1];
+        index.computeIfPresent((K) key, (k, node) -> {
+            if (!value.equals(node.value)) return node;
+            removed[0] = true;
+            return update(k, node, null);
+        });
+        return removed[0];
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(oldValue, "oldValue");
+        Objects.requireNonNull(newValue, "newValue");
+        boolean[] replaced = new boolean[1];
+        index.computeIfPresent(key, (k, node) -> {
+            if (!oldValue.equals(node.value)) return node;
+            replaced[0] = true;
+            return update(k, node, newValue);
+        });
+        return replaced[0];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V replace(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        Object[] previous = new Object[1];
+        index.computeIfPresent(key, (k, node) -> {
+            previous[0] = node.value;
+            return update(k, node, value);
+        });
+        return (V) previous[0];
+    }
+
+    @Override
+    public void clear() {
+        for (K key : index.keySet()) {
+            remove(key);
+        }
+    }
+
+    /**
+     * Applies a new value to the node of key. Must be called from inside a compute on the index.
+     *
+     * @return node to keep in the index, or null to drop the key
+     */
+    private Node<K, V> update(K key, Node<K, V> node, V value) {
+        if (value == null) {
+            if (node != null) order.remove(node.seq, node);
+            return null;
+        }
+        if (node != null) {
+            node.value = value;
+            return node;
+        }
+        Node<K, V> created = new Node<>(sequence.incrementAndGet(), key, value);
+        order.put(created.seq, created);
+        return created;
+    }
+
+    // --------------------
+    // Ordered views
+    // --------------------
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<K, V>> iterator() {
+                Iterator<Node<K, V>> nodes = order.values().iterator();
+                return new Iterator<>() {
+                    private Node<K, V> last;
+
+                    @Override
+                    public boolean hasNext() {
+                        return nodes.hasNext();
+                    }
+
+                    @Override
+                    public Entry<K, V> next() {
+                        Node<K, V> node = nodes.next();
+                        last = node;
+                        return new SimpleEntry<>(node.key, node.value) {
+                            @Override
+                            public V setValue(V value) {
+                                V previous = super.setValue(value);
+                                put(node.key, value);
+                                return previous;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public void remove() {
+                        if (last == null) throw new IllegalStateException();
+                        Node<K, V> removed = last;
+                        // only drop the key if it still maps to the node we returned
+                        index.computeIfPresent(removed.key, (k, node) -> (node == removed) ? update(k, node, null) : node);
+                        last = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return index.size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                if (!(o instanceof Map.Entry)) return false;
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                V v = get(e.getKey());
+                return v != null && v.equals(e.getValue());
+            }
+
+            @Override
+            public boolean remove(Object o) {
+                if (!(o instanceof Map.Entry)) return false;
+                Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+                return OrderedConcurrentMap.this.remove(e.getKey(), e.getValue());
+            }
+
+            @Override
+            public void clear() {
+                OrderedConcurrentMap.this.clear();
+            }
+        };
+    }
+}
@@ -0,0 +1,319 @@
+package me.biiee3l.bconfig.config;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolves {@code ${...}} references inside String values of a {@link Configuration}.
+ *
+ * Supported forms:
+ * - {@code ${a.b.c}}: value at another path of the same configuration (resolved recursively).
+ * - {@code ${env:NAME}}: environment variable.
+ * - {@code ${sys:name}}: system property.
+ * - {@code $${...}}: escaped, yields a literal {@code ${...}}.
+ * Unknown references are kept as written.
+ *
+ * Each value is parsed once into a template and its resolved form is memoized per path. The memo entry remembers the
+ * raw String it was computed from, so a path whose own value changes simply misses. Changes to referenced paths are
+ * pushed through a dependency graph (referenced path -> dependent paths) that invalidates only the transitive
+ * dependents. System properties and environment variables are read when a value is first resolved; call
+ * {@link #invalidateAll()} to pick up new ones.
+ */
+final class ReferenceResolver {
+
+    private static final String OPEN = "${";
+    private static final String ENV_PREFIX = "env:";
+    private static final String SYS_PREFIX = "sys:";
+
+    private static final class Reference {
+        /** env, sys or null for a configuration path. */
+        final String kind;
+        final String name;
+        /** Original text, used when the reference cannot be resolved. */
+        final String text;
+
+        Reference(String kind, String name, String text) {
+            this.kind = kind;
+            this.name = name;
+            this.text = text;
+        }
+    }
+
+    private static final class Template {
+        final String source;
+        /** String literals and {@link Reference}s in order. */
+        final Object[] parts;
+        /** Configuration paths referenced by this template. */
+        final List<String> paths;
+
+        Template(String source, Object[] parts, List<String> paths) {
+            this.source = source;
+            this.parts = parts;
+            this.paths = paths;
+        }
+    }
+
+    private static final class Resolved {
+        final String source;
+        final String value;
+
+        Resolved(String source, String value) {
+            this.source = source;
+            this.value = value;
+        }
+    }
+
+    private final Configuration config;
+    private final ConcurrentHashMap<String, Template> templates = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Resolved> memo = new ConcurrentHashMap<>();
+    /** Referenced path -> paths whose templates reference it. Sorted so that descendants can be found by range. */
+    private final ConcurrentSkipListMap<String, Set<String>> dependents = new ConcurrentSkipListMap<>();
+    /** Bumped by every invalidation; lets a resolution racing with a write drop its possibly stale memo entry. */
+    private final AtomicLong writes = new AtomicLong();
+
+    ReferenceResolver(Configuration config) {
+        this.config = config;
+    }
+
+    /**
+     * @param value raw String value
+     * @return true if value contains a reference and must go through {@link #resolve}
+     */
+    static boolean isTemplate(String value) {
+        return value.contains(OPEN);
+    }
+
+    /**
+     * Returns the resolved form of the raw value stored at path.
+     *
+     * @param path dotted path the value was read from
+     * @param raw  raw value at path
+     * @return resolved value
+     * @throws ConfigurationReferenceException if the references form a cycle
+     */
+    String resolve(String path, String raw) {
+        if (!isTemplate(raw)) return raw;
+        Resolved r = memo.get(path);
+        if (r != null && r.source.equals(raw)) return r.value;
+        return resolveAndMemoize(path, raw, new ArrayList<>());
+    }
+
+    private String resolveAndMemoize(String path, String raw, List<String> stack) {
+        if (stack.contains(path)) {
+            throw new ConfigurationReferenceException("Reference cycle: " + String.join(" -> ", stack) + " -> " + path);
+        }
+        long seen = writes.get();
+        Template template = template(path, raw);
+        stack.add(path);
+        StringBuilder sb = new StringBuilder(raw.length());
+        for (Object part : template.parts) {
+            if (part instanceof String) {
+                sb.append((String) part);
+            } else {
+                sb.append(lookup((Reference) part, stack));
+            }
+        }
+        stack.remove(stack.size() - 1);
+
+        String value = sb.toString();
+        Resolved resolved = new Resolved(raw, value);
+        memo.put(path, resolved);
+        // a write that raced with this resolution may have made it stale
+        if (writes.get() != seen) memo.remove(path, resolved);
+        return value;
+    }
+
+    private String lookup(Reference ref, List<String> stack) {
+        if (ENV_PREFIX.equals(ref.kind)) {
+            String v = System.getenv(ref.name);
+            return (v != null) ? v : ref.text;
+        }
+        if (SYS_PREFIX.equals(ref.kind)) {
+            String v = System.getProperty(ref.name);
+            return (v != null) ? v : ref.text;
+        }
+        Object v = config.lookup(ref.name);
+        if (v == null) return ref.text;
+        if (!(v instanceof String)) return v.toString();
+        String s = (String) v;
+        if (!isTemplate(s)) return s;
+        Resolved r = memo.get(ref.name);
+        if (r != null && r.source.equals(s)) return r.value;
+        return resolveAndMemoize(ref.name, s, stack);
+    }
+
+    /**
+     * Returns the parsed template for path, re-parsing and re-registering its dependencies when the raw value changed.
+     */
+    private Template template(String path, String raw) {
+        Template t = templates.get(path);
+        if (t != null && t.source.equals(raw)) return t;
+        Template parsed = parse(raw);
+        Template old = templates.put(path, parsed);
+        if (old != null) {
+            for (String dep : old.paths) {
+                Set<String> set = dependents.get(dep);
+                if (set != null) set.remove(path);
+            }
+        }
+        for (String dep : parsed.paths) {
+            dependents.computeIfAbsent(dep, k -> ConcurrentHashMap.newKeySet()).add(path);
+        }
+        return parsed;
+    }
+
+    private static Template parse(String source) {
+        List<Object> parts = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        StringBuilder literal = new StringBuilder();
+        int i = 0;
+        int n = source.length();
+        while (i < n) {
+            int start = source.indexOf(OPEN, i);
+            if (start < 0) {
+                literal.append(source, i, n);
+                break;
+            }
+            if (start > i && source.charAt(start - 1) == '$') {
+                // escaped: $${ -> literal ${
+                literal.append(source, i, start - 1).append(OPEN);
+                i = start + OPEN.length();
+                continue;
+            }
+            int end = source.indexOf('}', start + OPEN.length());
+            if (end < 0) {
+                literal.append(source, i, n);
+                break;
+            }
+            literal.append(source, i, start);
+            if (literal.length() > 0) {
+                parts.add(literal.toString());
+                literal.setLength(0);
+            }
+            String expr = source.substring(start + OPEN.length(), end).trim();
+            String text = source.substring(start, end + 1);
+            Reference ref;
+            if (expr.startsWith(ENV_PREFIX)) {
+                ref = new Reference(ENV_PREFIX, expr.substring(ENV_PREFIX.length()), text);
+            } else if (expr.startsWith(SYS_PREFIX)) {
+                ref = new Reference(SYS_PREFIX, expr.substring(SYS_PREFIX.length()), text);
+            } else {
+                ref = new Reference(null, expr, text);
+                paths.add(expr);
+            }
+            parts.add(ref);
+            i = end + 1;
+        }
+        if (literal.length() > 0) parts.add(literal.toString());
+        return new Template(source, parts.toArray(), paths.isEmpty() ? Collections.emptyList() : paths);
+    }
+
+    // --------------------
+    // Invalidation
+    // --------------------
+
+    /**
+     * Drops memoized values that depend, directly or transitively, on the given path, a section containing it or
+     * anything below it. Must be called after the tree has been written.
+     *
+     * @param path dotted path that was written or removed
+     */
+    void invalidate(String path) {
+        writes.incrementAndGet();
+        if (memo.isEmpty()) return;
+        Deque<String> pending = new ArrayDeque<>();
+        Set<String> visited = new HashSet<>();
+        pending.add(path);
+        while (!pending.isEmpty()) {
+            String changed = pending.poll();
+            if (!visited.add(changed)) continue;
+            memo.remove(changed);
+            addAll(pending, dependents.get(changed));
+            for (int dot = changed.lastIndexOf('.'); dot > 0; dot = changed.lastIndexOf('.', dot - 1)) {
+                addAll(pending, dependents.get(changed.substring(0, dot)));
+            }
+            for (Set<String> below : dependents.subMap(changed + ".", changed + ".\uffff").values()) {
+                addAll(pending, below);
+            }
+        }
+    }
+
+    private static void addAll(Deque<String> pending, Set<String> paths) {
+        if (paths != null) pending.addAll(paths);
+    }
+
+    /**
+     * Drops every memoized value.
+     */
+    void invalidateAll() {
+        writes.incrementAndGet();
+        memo.clear();
+    }
+
+    /**
+     * Forgets everything and re-parses all String values of the tree, failing if their references form a cycle.
+     *
+     * @param root new root of the configuration
+     * @throws ConfigurationReferenceException on a reference cycle
+     */
+    void rebuild(Map<String, Object> root) {
+        writes.incrementAndGet();
+        memo.clear();
+        templates.clear();
+        dependents.clear();
+        register(root, "");
+        checkCycles();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void register(Map<String, Object> section, String prefix) {
+        for (Map.Entry<String, Object> e : section.entrySet()) {
+            String path = prefix.isEmpty() ? e.getKey() : prefix + "." + e.getKey();
+            Object v = e.getValue();
+            if (v instanceof Map<?, ?>) {
+                register((Map<String, Object>) v, path);
+            } else if (v instanceof String && isTemplate((String) v)) {
+                template(path, (String) v);
+            }
+        }
+    }
+
+    private void checkCycles() {
+        Map<String, Boolean> done = new HashMap<>();
+        for (String path : templates.keySet()) {
+            visit(path, done, new ArrayList<>());
+        }
+    }
+
+    /**
+     * Depth-first walk over template references. done maps a path to false while it is on the stack and to true once
+     * all of its references have been checked.
+     */
+    private void visit(String path, Map<String, Boolean> done, List<String> stack) {
+        Boolean state = done.get(path);
+        if (Boolean.TRUE.equals(state)) return;
+        if (Boolean.FALSE.equals(state)) {
+            List<String> cycle = stack.subList(stack.indexOf(path), stack.size());
+            throw new ConfigurationReferenceException("Reference cycle: " + String.join(" -> ", cycle) + " -> " + path);
+        }
+        Template t = templates.get(path);
+        if (t == null) return;
+        done.put(path, Boolean.FALSE);
+        stack.add(path);
+        for (String dep : t.paths) {
+            visit(dep, done, stack);
+        }
+        stack.remove(stack.size() - 1);
+        done.put(path, Boolean.TRUE);
+    }
+}
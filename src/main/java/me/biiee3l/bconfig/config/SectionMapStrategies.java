@@ -0,0 +1,74 @@
+package me.biiee3l.bconfig.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Built-in {@link SectionMapStrategy} implementations.
+ *
+ * - {@link #CONCURRENT}: every section is a ConcurrentHashMap, loaded or not.
+ * - {@link #COMPACT} (default): loaded sections with at most {@link #COMPACT_THRESHOLD} keys are immutable array
+ *   maps, bigger ones are ConcurrentHashMap.
+ * - {@link #READ_OPTIMIZED}: like COMPACT, but bigger loaded sections use an immutable open-addressing map. Best for
+ *   trees that are loaded once and then only read.
+ * - {@link #ORDERED}: every section keeps insertion order; written sections are {@link OrderedConcurrentMap}s and
+ *   loaded sections are the immutable array maps of READ_OPTIMIZED, which keep source order as well and cost far less
+ *   than an OrderedConcurrentMap. A loaded section is copied into an OrderedConcurrentMap, in order, on first write.
+ */
+public enum SectionMapStrategies implements SectionMapStrategy {
+
+    CONCURRENT {
+        @Override
+        public Map<String, Object> loadedSection(String[] keys, Object[] values) {
+            return concurrentSection(keys, values);
+        }
+    },
+
+    COMPACT {
+        @Override
+        public Map<String, Object> loadedSection(String[] keys, Object[] values) {
+            if (keys.length <= COMPACT_THRESHOLD) return new CompactSection(keys, values);
+            return concurrentSection(keys, values);
+        }
+    },
+
+    READ_OPTIMIZED {
+        @Override
+        public Map<String, Object> loadedSection(String[] keys, Object[] values) {
+            if (keys.length <= COMPACT_THRESHOLD) return new CompactSection(keys, values);
+            return new HashedSection(keys, values);
+        }
+    },
+
+    ORDERED {
+        @Override
+        public ConcurrentMap<String, Object> createSection() {
+            return new OrderedConcurrentMap<>();
+        }
+
+        @Override
+        public Map<String, Object> loadedSection(String[] keys, Object[] values) {
+            if (keys.length <= COMPACT_THRESHOLD) return new CompactSection(keys, values);
+            return new HashedSection(keys, values);
+        }
+    };
+
+    /**
+     * Loaded sections with at most this many keys are stored as a linear-scan array map.
+     */
+    public static final int COMPACT_THRESHOLD = 8;
+
+    @Override
+    public ConcurrentMap<String, Object> createSection() {
+        return new ConcurrentHashMap<>();
+    }
+
+    private static ConcurrentMap<String, Object> concurrentSection(String[] keys, Object[] values) {
+        ConcurrentHashMap<String, Object> chm = new ConcurrentHashMap<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            chm.put(keys[i], values[i]);
+        }
+        return chm;
+    }
+}
@@ -0,0 +1,44 @@
+package me.biiee3l.bconfig.config;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Decides which Map implementation backs each section of a {@link Configuration}.
+ *
+ * Sections that are written to are always {@link ConcurrentMap}s created through {@link #createSection()}. Sections
+ * built at load time may be read-only (e.g. compact array maps); they are promoted to a writable section on the
+ * first write that reaches them. See {@link SectionMapStrategies} for the built-in strategies.
+ */
+public interface SectionMapStrategy {
+
+    /**
+     * Creates an empty writable section.
+     *
+     * @return new concurrent section
+     */
+    ConcurrentMap<String, Object> createSection();
+
+    /**
+     * Builds a nested section read at load time. The result may be read-only.
+     *
+     * @param keys   deduplicated section keys in source order; ownership passes to the strategy
+     * @param values values matching keys by index; ownership passes to the strategy
+     * @return section holding the given entries
+     */
+    Map<String, Object> loadedSection(String[] keys, Object[] values);
+
+    /**
+     * Returns a writable version of a section, or the section itself when it already is a {@link ConcurrentMap}.
+     *
+     * @param section section stored in the tree
+     * @return writable section with the same entries
+     */
+    @SuppressWarnings("unchecked")
+    default ConcurrentMap<String, Object> promote(Map<?, ?> section) {
+        if (section instanceof ConcurrentMap) return (ConcurrentMap<String, Object>) section;
+        ConcurrentMap<String, Object> writable = createSection();
+        writable.putAll((Map<String, Object>) section);
+        return writable;
+    }
+}
@@ -0,0 +1,35 @@
+package me.biiee3l.bconfig.config;
+
+/**
+ * Transforms a value between its in-memory form and the form stored in the configuration tree (and thus persisted by
+ * save()). Registered per path through {@link Configuration#setValueCodec(String, ValueCodec)}.
+ *
+ * Implementations must be thread-safe. Only leaf values (not sections or lists) go through a codec.
+ */
+public interface ValueCodec {
+
+    /**
+     * Encodes a value before it is stored.
+     *
+     * @param path  dotted path the value is stored at
+     * @param value plain value (never null)
+     * @return stored form
+     */
+    Object encode(String path, Object value);
+
+    /**
+     * Decodes a stored value. Values that are not in encoded form (see {@link #isEncoded(Object)}) should be returned
+     * unchanged.
+     *
+     * @param path   dotted path the value was read from
+     * @param stored stored form (never null)
+     * @return plain value
+     */
+    Object decode(String path, Object stored);
+
+    /**
+     * @param stored value read from the tree
+     * @return true if the value already is in encoded form
+     */
+    boolean isEncoded(Object stored);
+}
@@ -0,0 +1,17 @@
+package me.biiee3l.bconfig.config;
+
+/**
+ * Thrown when a {@link ValueCodec} cannot encode or decode a value, e.g. because of a wrong key or tampered data.
+ */
+public class ValueCodecException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ValueCodecException(String message) {
+        super(message);
+    }
+
+    public ValueCodecException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,84 @@
+package me.biiee3l.bconfig.config;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Weak canonicalizing pool for configuration keys and small leaf values.
+ *
+ * Parsers such as SnakeYAML and Gson create a new String or boxed number for every occurrence of the same key or
+ * value, so a large tree keeps thousands of equal copies alive. Interning through this pool makes equal keys and
+ * leaves share a single instance, while entries that no configuration references anymore are still reclaimed by the GC.
+ *
+ * The pool is striped so that concurrent loads do not contend on a single lock.
+ */
+final class ValueInterner {
+
+    /**
+     * Strings longer than this are rarely repeated and are kept as they are.
+     */
+    static final int MAX_STRING_LENGTH = 64;
+
+    private static final int STRIPES = 16;
+
+    /**
+     * Canonical instance by value; the canonical instance is only weakly referenced from its own entry.
+     */
+    private static final class Pool extends WeakHashMap<Object, WeakReference<Object>> {
+    }
+
+    private static final Pool[] POOLS = new Pool[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            POOLS[i] = new Pool();
+        }
+    }
+
+    private ValueInterner() {
+    }
+
+    /**
+     * Returns the canonical instance of a key.
+     *
+     * @param key key to intern
+     * @return shared instance equal to key
+     */
+    static String internKey(String key) {
+        return intern(key);
+    }
+
+    /**
+     * Returns the canonical instance of a leaf value. Short strings and boxed primitives are interned, anything else is
+     * returned unchanged.
+     *
+     * @param value leaf value (may be null)
+     * @return shared instance equal to value, or value itself
+     */
+    static Object internValue(Object value) {
+        if (value instanceof String) {
+            return ((String) value).length() <= MAX_STRING_LENGTH ? intern(value) : value;
+        }
+        if (value instanceof Boolean) {
+            return Boolean.valueOf((Boolean) value);
+        }
+        if (value instanceof Integer || value instanceof Long || value instanceof Double
+                || value instanceof Float || value instanceof Short || value instanceof Byte) {
+            return intern(value);
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T intern(T value) {
+        int h = value.hashCode();
+        Pool pool = POOLS[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        synchronized (pool) {
+            WeakReference<Object> ref = pool.get(value);
+            Object canonical = (ref != null) ? ref.get() : null;
+            if (canonical != null) return (T) canonical;
+            pool.put(value, new WeakReference<>(value));
+            return value;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package me.biiee3l.bconfig.config.crypto;
+
+import me.biiee3l.bconfig.config.ValueCodec;
+import me.biiee3l.bconfig.config.ValueCodecException;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ValueCodec} storing values as AES-GCM ciphertext: {@code ENC(<keyId>:<base64 of iv + ciphertext>)}.
+ *
+ * The path is authenticated along with the value, so a ciphertext copied to another path fails to decrypt. Values are
+ * stored as their String form and decode to a String; the typed getters parse them as usual.
+ *
+ * Plaintexts are kept in a bounded cache keyed by ciphertext. Since every set produces a new ciphertext (which is put
+ * in the cache right away), a value is decrypted at most once per change, not on every read. When the cache is full an
+ * arbitrary entry is evicted.
+ */
+public class EncryptedValueCodec implements ValueCodec {
+
+    private static final String PREFIX = "ENC(";
+    private static final String SUFFIX = ")";
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_BYTES = 12;
+    private static final int TAG_BITS = 128;
+    private static final int DEFAULT_CACHE_SIZE = 1024;
+
+    private static final class Plain {
+        final String path;
+        final String value;
+
+        Plain(String path, String value) {
+            this.path = path;
+            this.value = value;
+        }
+    }
+
+    private final KeyProvider keys;
+    private final int maxCached;
+    private final ConcurrentHashMap<String, Plain> cache = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    public EncryptedValueCodec(KeyProvider keys) {
+        this(keys, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param keys      key provider
+     * @param maxCached maximum number of cached plaintexts
+     */
+    public EncryptedValueCodec(KeyProvider keys, int maxCached) {
+        this.keys = Objects.requireNonNull(keys, "keys");
+        if (maxCached < 0) throw new IllegalArgumentException("maxCached < 0");
+        this.maxCached = maxCached;
+    }
+
+    @Override
+    public Object encode(String path, Object value) {
+        if (value instanceof Map || value instanceof Collection) {
+            throw new ValueCodecException("Only leaf values can be encrypted: " + path);
+        }
+        String plain = value.toString();
+        String keyId = keys.currentKeyId();
+        SecretKey key = keys.key(keyId);
+        if (key == null) throw new ValueCodecException("Unknown key id " + keyId);
+        try {
+            byte[] iv = new byte[IV_BYTES];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(path.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(plain.getBytes(StandardCharsets.UTF_8));
+            byte[] out = ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array();
+            String stored = PREFIX + keyId + ":" + Base64.getEncoder().encodeToString(out) + SUFFIX;
+            cache(stored, new Plain(path, plain));
+            return stored;
+        } catch (GeneralSecurityException e) {
+            throw new ValueCodecException("Can't encrypt " + path, e);
+        }
+    }
+
+    @Override
+    public Object decode(String path, Object stored) {
+        if (!isEncoded(stored)) return stored;
+        String text = (String) stored;
+        Plain cached = cache.get(text);
+        if (cached != null && cached.path.equals(path)) return cached.value;
+
+        int sep = text.lastIndexOf(':');
+        if (sep < PREFIX.length()) throw new ValueCodecException("Malformed encrypted value at " + path);
+        String keyId = text.substring(PREFIX.length(), sep);
+        SecretKey key = keys.key(keyId);
+        if (key == null) throw new ValueCodecException("Unknown key id " + keyId + " for " + path);
+        try {
+            byte[] in = Base64.getDecoder().decode(text.substring(sep + 1, text.length() - SUFFIX.length()));
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, in, 0, IV_BYTES));
+            cipher.updateAAD(path.getBytes(StandardCharsets.UTF_8));
+            String plain = new String(cipher.doFinal(in, IV_BYTES, in.length - IV_BYTES), StandardCharsets.UTF_8);
+            cache(text, new Plain(path, plain));
+            return plain;
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            throw new ValueCodecException("Can't decrypt " + path, e);
+        }
+    }
+
+    @Override
+    public boolean isEncoded(Object stored) {
+        if (!(stored instanceof String)) return false;
+        String s = (String) stored;
+        return s.startsWith(PREFIX) && s.endsWith(SUFFIX);
+    }
+
+    /**
+     * Drops every cached plaintext.
+     */
+    public void clearCache() {
+        cache.clear();
+    }
+
+    private void cache(String stored, Plain plain) {
+        if (maxCached == 0) return;
+        if (cache.size() >= maxCached) {
+            Iterator<String> it = cache.keySet().iterator();
+            if (it.hasNext()) {
+                it.next();
+                it.remove();
+            }
+        }
+        cache.put(stored, plain);
+    }
+}
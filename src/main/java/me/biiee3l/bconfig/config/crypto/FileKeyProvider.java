@@ -0,0 +1,130 @@
+package me.biiee3l.bconfig.config.crypto;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.EnumSet;
+
+/**
+ * Local key provider reading a Base64 encoded AES-256 key from a file. The key id is the file name.
+ *
+ * If the file does not exist a new random key is generated. It is written to a temporary file readable by the owner
+ * only (POSIX permissions, or an owner-only ACL) that is then linked to the final name, so the key file is never seen
+ * empty or with the default umask, and a key created concurrently by another process is read instead of overwritten.
+ * Creating a key fails on file systems that can restrict neither.
+ */
+public class FileKeyProvider implements KeyProvider {
+
+    private static final int KEY_BYTES = 32;
+
+    private final String keyId;
+    private final SecretKey key;
+
+    public FileKeyProvider(File file) {
+        this.keyId = file.getName();
+        this.key = new SecretKeySpec(readOrCreate(file), "AES");
+    }
+
+    private static byte[] readOrCreate(File file) {
+        Path path = file.toPath();
+        try {
+            if (Files.exists(path)) return read(path);
+            if (file.getParentFile() != null) file.getParentFile().mkdirs();
+            byte[] raw = new byte[KEY_BYTES];
+            new SecureRandom().nextBytes(raw);
+            Path tmp = createOwnerOnlyTemp(path);
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    channel.write(ByteBuffer.wrap(Base64.getEncoder().encode(raw)));
+                    channel.force(true);
+                }
+                publish(tmp, path);
+            } catch (FileAlreadyExistsException e) {
+                // another process created the key first
+                return read(path);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            return raw;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Can't read key file " + file, e);
+        }
+    }
+
+    private static byte[] read(Path path) throws IOException {
+        String encoded = new String(Files.readAllBytes(path), StandardCharsets.UTF_8).trim();
+        return Base64.getDecoder().decode(encoded);
+    }
+
+    /**
+     * Creates an empty temporary file next to path that only the owner can read and write.
+     *
+     * @throws IOException if the file system can't restrict the permissions
+     */
+    private static Path createOwnerOnlyTemp(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName().toString();
+        FileStore store = Files.getFileStore(dir);
+        if (store.supportsFileAttributeView(PosixFileAttributeView.class)) {
+            return Files.createTempFile(dir, prefix, ".tmp",
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        }
+        if (!store.supportsFileAttributeView(AclFileAttributeView.class)) {
+            throw new IOException("Can't restrict permissions of key files in " + dir);
+        }
+        Path tmp = Files.createTempFile(dir, prefix, ".tmp");
+        try {
+            AclFileAttributeView acl = Files.getFileAttributeView(tmp, AclFileAttributeView.class);
+            acl.setAcl(Collections.singletonList(AclEntry.newBuilder()
+                    .setType(AclEntryType.ALLOW)
+                    .setPrincipal(acl.getOwner())
+                    .setPermissions(EnumSet.allOf(AclEntryPermission.class))
+                    .build()));
+            return tmp;
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+    }
+
+    /**
+     * Gives the complete temporary file its final name, failing with FileAlreadyExistsException if that name is taken.
+     */
+    private static void publish(Path tmp, Path path) throws IOException {
+        try {
+            Files.createLink(path, tmp);
+        } catch (UnsupportedOperationException e) {
+            // no hard links: a plain move still never replaces an existing key
+            Files.move(tmp, path);
+        }
+    }
+
+    @Override
+    public String currentKeyId() {
+        return keyId;
+    }
+
+    @Override
+    public SecretKey key(String id) {
+        return keyId.equals(id) ? key : null;
+    }
+}
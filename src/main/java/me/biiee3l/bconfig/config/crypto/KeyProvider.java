@@ -0,0 +1,51 @@
+package me.biiee3l.bconfig.config.crypto;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Objects;
+
+/**
+ * Supplies AES keys to {@link EncryptedValueCodec}.
+ *
+ * Every ciphertext records the id of the key it was encrypted with, so a provider can keep old keys around for
+ * decryption while encrypting new values with the current one.
+ */
+public interface KeyProvider {
+
+    /**
+     * @return id of the key new values are encrypted with
+     */
+    String currentKeyId();
+
+    /**
+     * @param keyId key id recorded in a ciphertext
+     * @return the key, or null if unknown
+     */
+    SecretKey key(String keyId);
+
+    /**
+     * Provider holding a single in-memory key.
+     *
+     * @param keyId id recorded in ciphertexts
+     * @param key   raw AES key (16, 24 or 32 bytes)
+     * @return key provider
+     */
+    static KeyProvider of(String keyId, byte[] key) {
+        Objects.requireNonNull(keyId, "keyId");
+        if (key.length != 16 && key.length != 24 && key.length != 32) {
+            throw new IllegalArgumentException("AES key must be 16, 24 or 32 bytes, got " + key.length);
+        }
+        SecretKey secret = new SecretKeySpec(key.clone(), "AES");
+        return new KeyProvider() {
+            @Override
+            public String currentKeyId() {
+                return keyId;
+            }
+
+            @Override
+            public SecretKey key(String id) {
+                return keyId.equals(id) ? secret : null;
+            }
+        };
+    }
+}
@@ -0,0 +1,34 @@
+package me.biiee3l.bconfig.config.stream;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Source of a configuration tree that pushes it, as it is parsed, into a {@link ConfigurationWriter}.
+ *
+ * Pass a reader to {@link me.biiee3l.bconfig.config.Configuration#merge(ConfigurationReader, boolean)} to load it into
+ * a configuration, or straight to another format's writer to convert it.
+ */
+@FunctionalInterface
+public interface ConfigurationReader {
+
+    /**
+     * Emits the whole tree as one section.
+     *
+     * @param out receiver of the events
+     * @throws IOException if the source can't be read or is not a valid tree
+     */
+    void read(ConfigurationWriter out) throws IOException;
+
+    /**
+     * Reader over an in-memory tree, e.g. a BSON {@code Document}.
+     *
+     * @param tree tree to emit
+     * @return reader walking tree
+     */
+    static ConfigurationReader of(Map<String, ?> tree) {
+        Objects.requireNonNull(tree, "tree");
+        return out -> out.value(tree);
+    }
+}
@@ -0,0 +1,54 @@
+package me.biiee3l.bconfig.config.stream;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives a configuration tree as a stream of events, so a tree can be converted to another format without building
+ * an intermediate copy of it.
+ *
+ * A tree is one section: {@code beginSection}, then for every entry a {@code key} followed by a value, then
+ * {@code endSection}. A value is a {@code scalar}, a nested section or a list ({@code beginList}, values,
+ * {@code endList}). Scalars are null, String, Number or Boolean; writers turn anything else into its String form.
+ */
+public interface ConfigurationWriter {
+
+    void beginSection() throws IOException;
+
+    void key(String key) throws IOException;
+
+    void endSection() throws IOException;
+
+    void beginList() throws IOException;
+
+    void endList() throws IOException;
+
+    void scalar(Object value) throws IOException;
+
+    /**
+     * Writes a value of an in-memory tree, walking nested maps and lists as sections and lists.
+     *
+     * @param value map, list or scalar
+     * @throws IOException if the writer fails
+     */
+    default void value(Object value) throws IOException {
+        if (value instanceof Map<?, ?>) {
+            beginSection();
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                if (e.getValue() == null) continue;
+                key(String.valueOf(e.getKey()));
+                value(e.getValue());
+            }
+            endSection();
+        } else if (value instanceof List<?>) {
+            beginList();
+            for (Object item : (List<?>) value) {
+                value(item);
+            }
+            endList();
+        } else {
+            scalar(value);
+        }
+    }
+}
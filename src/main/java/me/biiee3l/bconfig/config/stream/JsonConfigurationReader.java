@@ -0,0 +1,83 @@
+package me.biiee3l.bconfig.config.stream;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads JSON token by token with Gson's streaming {@link JsonReader}; memory use does not grow with the document.
+ *
+ * Numbers become Integer or Long when they are integral and fit, Double otherwise. The source is parsed leniently,
+ * like {@link com.google.gson.Gson#fromJson(Reader, Class)} does. The Reader is not closed.
+ */
+public class JsonConfigurationReader implements ConfigurationReader {
+
+    private final Reader reader;
+
+    public JsonConfigurationReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public void read(ConfigurationWriter out) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        json.setLenient(true);
+        if (json.peek() != JsonToken.BEGIN_OBJECT) {
+            throw new IOException("Expected a JSON object at " + json.getPath());
+        }
+        value(json, out);
+    }
+
+    private static void value(JsonReader json, ConfigurationWriter out) throws IOException {
+        switch (json.peek()) {
+            case BEGIN_OBJECT:
+                json.beginObject();
+                out.beginSection();
+                while (json.hasNext()) {
+                    out.key(json.nextName());
+                    value(json, out);
+                }
+                json.endObject();
+                out.endSection();
+                break;
+            case BEGIN_ARRAY:
+                json.beginArray();
+                out.beginList();
+                while (json.hasNext()) {
+                    value(json, out);
+                }
+                json.endArray();
+                out.endList();
+                break;
+            case STRING:
+                out.scalar(json.nextString());
+                break;
+            case NUMBER:
+                out.scalar(number(json.nextString()));
+                break;
+            case BOOLEAN:
+                out.scalar(json.nextBoolean());
+                break;
+            case NULL:
+                json.nextNull();
+                out.scalar(null);
+                break;
+            default:
+                throw new IOException("Unexpected " + json.peek() + " at " + json.getPath());
+        }
+    }
+
+    private static Object number(String text) {
+        if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+            try {
+                long l = Long.parseLong(text);
+                return (l == (int) l) ? (Object) (int) l : (Object) l;
+            } catch (NumberFormatException ignored) {
+                // out of range for a long
+            }
+        }
+        return Double.parseDouble(text);
+    }
+}
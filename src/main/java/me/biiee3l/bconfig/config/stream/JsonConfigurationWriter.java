@@ -0,0 +1,75 @@
+package me.biiee3l.bconfig.config.stream;
+
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes events as JSON through Gson's streaming {@link JsonWriter}. The underlying Writer is flushed once the
+ * top-level section ends and is never closed.
+ */
+public class JsonConfigurationWriter implements ConfigurationWriter {
+
+    private final JsonWriter json;
+    private int depth;
+
+    public JsonConfigurationWriter(Writer writer) {
+        this(writer, "");
+    }
+
+    /**
+     * @param writer target
+     * @param indent indentation of each level, empty for compact output
+     */
+    public JsonConfigurationWriter(Writer writer, String indent) {
+        this.json = new JsonWriter(writer);
+        json.setIndent(indent);
+    }
+
+    @Override
+    public void beginSection() throws IOException {
+        json.beginObject();
+        depth++;
+    }
+
+    @Override
+    public void key(String key) throws IOException {
+        json.name(key);
+    }
+
+    @Override
+    public void endSection() throws IOException {
+        json.endObject();
+        end();
+    }
+
+    @Override
+    public void beginList() throws IOException {
+        json.beginArray();
+        depth++;
+    }
+
+    @Override
+    public void endList() throws IOException {
+        json.endArray();
+        end();
+    }
+
+    @Override
+    public void scalar(Object value) throws IOException {
+        if (value == null) {
+            json.nullValue();
+        } else if (value instanceof Number) {
+            json.value((Number) value);
+        } else if (value instanceof Boolean) {
+            json.value((boolean) (Boolean) value);
+        } else {
+            json.value(value.toString());
+        }
+    }
+
+    private void end() throws IOException {
+        if (--depth == 0) json.flush();
+    }
+}
@@ -0,0 +1,132 @@
+package me.biiee3l.bconfig.config.stream;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Builds Java maps and lists from events. Sections are created by a supplier, so the tree can be built directly as
+ * BSON: {@code new MapConfigurationWriter(Document::new)}.
+ *
+ * Not thread-safe.
+ */
+public class MapConfigurationWriter implements ConfigurationWriter {
+
+    /**
+     * Open section or list, with the key its next value goes to when it is a section.
+     */
+    private static final class Frame {
+        final Object container;
+        String key;
+
+        Frame(Object container) {
+            this.container = container;
+        }
+    }
+
+    private final Supplier<? extends Map<String, Object>> sections;
+    /** Innermost first. */
+    private final Deque<Frame> open = new ArrayDeque<>();
+    private Object result;
+    private boolean complete;
+
+    public MapConfigurationWriter() {
+        this(LinkedHashMap::new);
+    }
+
+    /**
+     * @param sections creates the map of every section
+     */
+    public MapConfigurationWriter(Supplier<? extends Map<String, Object>> sections) {
+        this.sections = Objects.requireNonNull(sections, "sections");
+    }
+
+    /**
+     * @return true once a complete top-level value has been written
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * @return last complete top-level value: a map, a list or a scalar
+     */
+    public Object getValue() {
+        if (!complete) throw new IllegalStateException("No complete value written");
+        return result;
+    }
+
+    /**
+     * @return last complete top-level section
+     */
+    public Map<String, Object> getSection() {
+        Object value = getValue();
+        if (!(value instanceof Map<?, ?>)) throw new IllegalStateException("Top-level value is not a section");
+        @SuppressWarnings("unchecked")
+        Map<String, Object> section = (Map<String, Object>) value;
+        return section;
+    }
+
+    @Override
+    public void beginSection() {
+        open.push(new Frame(sections.get()));
+    }
+
+    @Override
+    public void key(String key) {
+        Frame frame = open.peek();
+        if (frame == null || !(frame.container instanceof Map<?, ?>)) {
+            throw new IllegalStateException("Key outside of a section: " + key);
+        }
+        frame.key = Objects.requireNonNull(key, "key");
+    }
+
+    @Override
+    public void endSection() {
+        close(Map.class);
+    }
+
+    @Override
+    public void beginList() {
+        open.push(new Frame(new ArrayList<>()));
+    }
+
+    @Override
+    public void endList() {
+        close(List.class);
+    }
+
+    @Override
+    public void scalar(Object value) {
+        add(value);
+    }
+
+    private void close(Class<?> type) {
+        Frame frame = open.peek();
+        if (frame == null || !type.isInstance(frame.container)) {
+            throw new IllegalStateException("No open " + type.getSimpleName());
+        }
+        open.pop();
+        add(frame.container);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void add(Object value) {
+        Frame parent = open.peek();
+        if (parent == null) {
+            result = value;
+            complete = true;
+        } else if (parent.container instanceof List<?>) {
+            ((List<Object>) parent.container).add(value);
+        } else {
+            if (parent.key == null) throw new IllegalStateException("Value without a key");
+            if (value != null) ((Map<String, Object>) parent.container).put(parent.key, value);
+            parent.key = null;
+        }
+    }
+}
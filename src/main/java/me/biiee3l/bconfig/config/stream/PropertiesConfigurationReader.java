@@ -0,0 +1,160 @@
+package me.biiee3l.bconfig.config.stream;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * Reads a {@code .properties} file as written by {@link PropertiesConfigurationWriter}: dotted keys become nested
+ * sections and {@code [n]} suffixes become list items. Values are Strings; the typed getters parse them.
+ *
+ * A properties file lists its leaves in any order, so unlike the other readers this one has to hold the whole tree
+ * before emitting it. Entries are parsed by {@link Properties#load(Reader)} and folded into the tree as they are read,
+ * in file order, without keeping a flat copy. When a key is given twice, or both as a leaf and as a section, the last
+ * line wins. The Reader is not closed.
+ *
+ * List items are kept by index until the file has been read. Missing indexes then become null items, since the writer
+ * leaves null items out; an index more than {@link #MAX_GAP} past the previous item fails the read, so that a single
+ * huge index can neither make the reader allocate a huge list nor silently move items to other indexes.
+ */
+public class PropertiesConfigurationReader implements ConfigurationReader {
+
+    /**
+     * Longest run of missing indexes filled with null items; longer gaps are rejected.
+     */
+    public static final int MAX_GAP = 16;
+
+    /**
+     * List being read: items by index.
+     */
+    private static final class Items extends TreeMap<Integer, Object> {
+        private static final long serialVersionUID = 1L;
+    }
+
+    private final Reader reader;
+
+    public PropertiesConfigurationReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public void read(ConfigurationWriter out) throws IOException {
+        Map<String, Object> tree = new LinkedHashMap<>();
+        Properties parser = new Properties() {
+            @Override
+            public synchronized Object put(Object key, Object value) {
+                insert(tree, key.toString(), value);
+                return null;
+            }
+        };
+        parser.load(reader);
+        out.value(toLists(tree, ""));
+    }
+
+    /**
+     * Replaces every {@link Items} of the tree by a list.
+     *
+     * @param path key of value, for error messages
+     * @throws IOException if a list index is more than {@link #MAX_GAP} past the previous item
+     */
+    @SuppressWarnings("unchecked")
+    private static Object toLists(Object value, String path) throws IOException {
+        if (value instanceof Items) {
+            List<Object> list = new ArrayList<>();
+            for (Map.Entry<Integer, Object> e : ((Items) value).entrySet()) {
+                int missing = e.getKey() - list.size();
+                if (missing > MAX_GAP) {
+                    throw new IOException("List index " + path + "[" + e.getKey() + "] is more than " + MAX_GAP
+                            + " past the previous item");
+                }
+                for (int i = 0; i < missing; i++) list.add(null);
+                list.add(toLists(e.getValue(), path + "[" + e.getKey() + "]"));
+            }
+            return list;
+        }
+        if (value instanceof Map<?, ?>) {
+            for (Map.Entry<String, Object> e : ((Map<String, Object>) value).entrySet()) {
+                e.setValue(toLists(e.getValue(), path.isEmpty() ? e.getKey() : path + "." + e.getKey()));
+            }
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void insert(Map<String, Object> tree, String key, Object value) {
+        Object container = tree;
+        // pending slot in container: a key when it is a map, an index when it is a list
+        String slot = null;
+        int index = -1;
+        for (String segment : key.split("\\.", -1)) {
+            container = descend(container, slot, index, true);
+            int[] indexes = indexes(segment);
+            slot = (indexes == null) ? segment : segment.substring(0, segment.indexOf('['));
+            index = -1;
+            if (indexes == null) continue;
+            for (int n : indexes) {
+                container = descend(container, slot, index, false);
+                slot = null;
+                index = n;
+            }
+        }
+        if (slot != null) {
+            ((Map<String, Object>) container).put(slot, value);
+        } else {
+            ((Items) container).put(index, value);
+        }
+    }
+
+    /**
+     * Returns the section (or list) at the pending slot of container, replacing whatever else is there.
+     */
+    @SuppressWarnings("unchecked")
+    private static Object descend(Object container, String slot, int index, boolean section) {
+        if (slot == null && index < 0) return container;
+        Object child;
+        if (slot != null) {
+            Map<String, Object> map = (Map<String, Object>) container;
+            child = map.get(slot);
+            if (!matches(child, section)) {
+                child = section ? new LinkedHashMap<>() : new Items();
+                map.put(slot, child);
+            }
+        } else {
+            Items items = (Items) container;
+            child = items.get(index);
+            if (!matches(child, section)) {
+                child = section ? new LinkedHashMap<>() : new Items();
+                items.put(index, child);
+            }
+        }
+        return child;
+    }
+
+    private static boolean matches(Object child, boolean section) {
+        return section ? child instanceof Map<?, ?> && !(child instanceof Items) : child instanceof Items;
+    }
+
+    /**
+     * @return indexes of a {@code name[i][j]} segment, or null if it has none (or they are not valid indexes)
+     */
+    private static int[] indexes(String segment) {
+        int bracket = segment.indexOf('[');
+        if (bracket <= 0 || !segment.endsWith("]")) return null;
+        String[] parts = segment.substring(bracket + 1, segment.length() - 1).split("]\\[", -1);
+        int[] indexes = new int[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (part.isEmpty() || part.length() > 9) return null;
+            for (int c = 0; c < part.length(); c++) {
+                if (part.charAt(c) < '0' || part.charAt(c) > '9') return null;
+            }
+            indexes[i] = Integer.parseInt(part);
+        }
+        return indexes;
+    }
+}
@@ -0,0 +1,131 @@
+package me.biiee3l.bconfig.config.stream;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writes events as a {@code .properties} file, one line per leaf: {@code a.b.c=value}. List items get an index
+ * suffix, {@code servers[0].host=...}. Nulls and empty sections or lists have no representation and are skipped.
+ *
+ * Keys and values are escaped as {@link java.util.Properties#store(Writer, String)} does, except that non-ASCII
+ * characters are written as-is; read the file back with a Reader, not an InputStream. The Writer is flushed once the
+ * top-level section ends and is never closed.
+ */
+public class PropertiesConfigurationWriter implements ConfigurationWriter {
+
+    private final Writer writer;
+    /** Path prefix of every open section or list, outermost first. */
+    private final List<String> prefixes = new ArrayList<>();
+    /** Next index of every open list, -1 for sections. */
+    private final List<Integer> indexes = new ArrayList<>();
+    private String key;
+
+    public PropertiesConfigurationWriter(Writer writer) {
+        this.writer = writer;
+    }
+
+    @Override
+    public void beginSection() {
+        open(-1);
+    }
+
+    @Override
+    public void key(String key) {
+        this.key = key;
+    }
+
+    @Override
+    public void endSection() throws IOException {
+        close();
+    }
+
+    @Override
+    public void beginList() {
+        open(0);
+    }
+
+    @Override
+    public void endList() throws IOException {
+        close();
+    }
+
+    @Override
+    public void scalar(Object value) throws IOException {
+        String path = next();
+        if (value == null || path.isEmpty()) return;
+        writer.write(escape(path, true));
+        writer.write('=');
+        writer.write(escape(value.toString(), false));
+        writer.write(System.lineSeparator());
+    }
+
+    private void open(int index) {
+        prefixes.add(prefixes.isEmpty() ? "" : next());
+        indexes.add(index);
+    }
+
+    private void close() throws IOException {
+        prefixes.remove(prefixes.size() - 1);
+        indexes.remove(indexes.size() - 1);
+        if (prefixes.isEmpty()) writer.flush();
+    }
+
+    /**
+     * @return path of the value that comes next in the innermost open section or list
+     */
+    private String next() {
+        if (prefixes.isEmpty()) return "";
+        int last = prefixes.size() - 1;
+        String prefix = prefixes.get(last);
+        int index = indexes.get(last);
+        if (index >= 0) {
+            indexes.set(last, index + 1);
+            return prefix + "[" + index + "]";
+        }
+        return prefix.isEmpty() ? key : prefix + "." + key;
+    }
+
+    private static String escape(String s, boolean key) {
+        StringBuilder sb = new StringBuilder(s.length() + 8);
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\f':
+                    sb.append("\\f");
+                    break;
+                case ' ':
+                    // only leading spaces of a value are dropped on load
+                    if (key || i == 0) sb.append('\\');
+                    sb.append(c);
+                    break;
+                case '=':
+                case ':':
+                case '#':
+                case '!':
+                    sb.append('\\').append(c);
+                    break;
+                default:
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        return sb.toString();
+    }
+}
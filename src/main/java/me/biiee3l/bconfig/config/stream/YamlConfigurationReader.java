@@ -0,0 +1,162 @@
+package me.biiee3l.bconfig.config.stream;
+
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+import org.yaml.snakeyaml.events.Event;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads the first YAML document of a stream from SnakeYAML's parser events, without composing a node graph.
+ *
+ * Scalars are resolved and constructed one at a time with SnakeYAML's safe constructors, so they get the same types
+ * as with {@code Yaml.load}. Aliases can't be followed without keeping the anchored nodes around and fail with an
+ * IOException; so do complex (non-scalar) keys. The Reader is not closed.
+ */
+public class YamlConfigurationReader implements ConfigurationReader {
+
+    /**
+     * State of an open collection.
+     */
+    private enum Open {
+        /** Mapping expecting a key. */
+        KEY,
+        /** Mapping expecting the value of the last key. */
+        VALUE,
+        LIST
+    }
+
+    private final Reader reader;
+    private final LoaderOptions options;
+
+    /**
+     * Reader without a size limit on the document.
+     */
+    public YamlConfigurationReader(Reader reader) {
+        this(reader, unlimited());
+    }
+
+    public YamlConfigurationReader(Reader reader, LoaderOptions options) {
+        this.reader = reader;
+        this.options = options;
+    }
+
+    private static LoaderOptions unlimited() {
+        LoaderOptions options = new LoaderOptions();
+        options.setCodePointLimit(Integer.MAX_VALUE);
+        return options;
+    }
+
+    @Override
+    public void read(ConfigurationWriter out) throws IOException {
+        ScalarConstructor constructor = new ScalarConstructor(options);
+        Resolver resolver = new Resolver();
+        Deque<Open> open = new ArrayDeque<>();
+        boolean started = false;
+
+        for (Event event : new Yaml(options).parse(reader)) {
+            switch (event.getEventId()) {
+                case StreamStart:
+                case DocumentStart:
+                case Comment:
+                    break;
+                case MappingStart:
+                    if (!started) started = true;
+                    else beforeCollection(open, event);
+                    out.beginSection();
+                    open.push(Open.KEY);
+                    break;
+                case SequenceStart:
+                    if (!started) throw new IOException("Expected a YAML mapping at " + event.getStartMark());
+                    beforeCollection(open, event);
+                    out.beginList();
+                    open.push(Open.LIST);
+                    break;
+                case MappingEnd:
+                    open.pop();
+                    out.endSection();
+                    afterValue(open);
+                    break;
+                case SequenceEnd:
+                    open.pop();
+                    out.endList();
+                    afterValue(open);
+                    break;
+                case Scalar: {
+                    Object value = constructor.construct(resolver, (ScalarEvent) event);
+                    if (!started) {
+                        // empty document
+                        if (value != null) throw new IOException("Expected a YAML mapping at " + event.getStartMark());
+                        started = true;
+                        out.beginSection();
+                        out.endSection();
+                    } else if (open.peek() == Open.KEY) {
+                        out.key(String.valueOf(value));
+                        open.pop();
+                        open.push(Open.VALUE);
+                    } else {
+                        out.scalar(value);
+                        afterValue(open);
+                    }
+                    break;
+                }
+                case Alias:
+                    throw new IOException("YAML aliases are not supported when streaming, at " + event.getStartMark());
+                case DocumentEnd:
+                case StreamEnd:
+                    if (!started) {
+                        out.beginSection();
+                        out.endSection();
+                    }
+                    return;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static void beforeCollection(Deque<Open> open, Event event) throws IOException {
+        if (open.peek() == Open.KEY) {
+            throw new IOException("Complex YAML keys are not supported, at " + event.getStartMark());
+        }
+    }
+
+    /**
+     * A value completed the entry of an enclosing mapping, which now expects a key again.
+     */
+    private static void afterValue(Deque<Open> open) {
+        if (open.peek() == Open.VALUE) {
+            open.pop();
+            open.push(Open.KEY);
+        }
+    }
+
+    /**
+     * Constructs single scalars without SnakeYAML's per-document bookkeeping, which would retain every node.
+     */
+    private static final class ScalarConstructor extends SafeConstructor {
+
+        ScalarConstructor(LoaderOptions options) {
+            super(options);
+        }
+
+        Object construct(Resolver resolver, ScalarEvent event) {
+            String tag = event.getTag();
+            Tag nodeTag = (tag == null || tag.equals("!"))
+                    ? resolver.resolve(NodeId.scalar, event.getValue(), event.getImplicit().canOmitTagInPlainScalar())
+                    : new Tag(tag);
+            ScalarNode node = new ScalarNode(nodeTag, event.getValue(), event.getStartMark(), event.getEndMark(),
+                    event.getScalarStyle());
+            return getConstructor(node).construct(node);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package me.biiee3l.bconfig.config.stream;
+
+import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.emitter.Emitter;
+import org.yaml.snakeyaml.events.DocumentEndEvent;
+import org.yaml.snakeyaml.events.DocumentStartEvent;
+import org.yaml.snakeyaml.events.ImplicitTuple;
+import org.yaml.snakeyaml.events.MappingEndEvent;
+import org.yaml.snakeyaml.events.MappingStartEvent;
+import org.yaml.snakeyaml.events.ScalarEvent;
+import org.yaml.snakeyaml.events.SequenceEndEvent;
+import org.yaml.snakeyaml.events.SequenceStartEvent;
+import org.yaml.snakeyaml.events.StreamEndEvent;
+import org.yaml.snakeyaml.events.StreamStartEvent;
+import org.yaml.snakeyaml.nodes.NodeId;
+import org.yaml.snakeyaml.nodes.Tag;
+import org.yaml.snakeyaml.resolver.Resolver;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Writes events as a YAML document through SnakeYAML's {@link Emitter}, without building a node graph.
+ *
+ * Scalars are tagged the way SnakeYAML's representer would tag them; a String that would otherwise read back as
+ * another type (e.g. {@code "123"} or {@code "true"}) is quoted. The document ends, and the Writer is flushed, when
+ * the top-level section ends. The Writer is never closed.
+ */
+public class YamlConfigurationWriter implements ConfigurationWriter {
+
+    private static final Pattern MULTILINE = Pattern.compile("\n|\u0085|\u2028|\u2029");
+
+    private final Emitter emitter;
+    private final DumperOptions options;
+    private final Resolver resolver = new Resolver();
+    private int depth;
+
+    /**
+     * Block style with an indentation of 2, like {@link me.biiee3l.bconfig.config.types.YamlConfiguration}.
+     */
+    public YamlConfigurationWriter(Writer writer) {
+        this(writer, defaultOptions());
+    }
+
+    public YamlConfigurationWriter(Writer writer, DumperOptions options) {
+        this.options = options;
+        this.emitter = new Emitter(writer, options);
+    }
+
+    private static DumperOptions defaultOptions() {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+        options.setPrettyFlow(true);
+        return options;
+    }
+
+    @Override
+    public void beginSection() throws IOException {
+        begin();
+        emitter.emit(new MappingStartEvent(null, null, true, null, null, options.getDefaultFlowStyle()));
+    }
+
+    @Override
+    public void key(String key) throws IOException {
+        scalar(key);
+    }
+
+    @Override
+    public void endSection() throws IOException {
+        emitter.emit(new MappingEndEvent(null, null));
+        end();
+    }
+
+    @Override
+    public void beginList() throws IOException {
+        begin();
+        emitter.emit(new SequenceStartEvent(null, null, true, null, null, options.getDefaultFlowStyle()));
+    }
+
+    @Override
+    public void endList() throws IOException {
+        emitter.emit(new SequenceEndEvent(null, null));
+        end();
+    }
+
+    @Override
+    public void scalar(Object value) throws IOException {
+        Tag tag;
+        String text;
+        if (value == null) {
+            tag = Tag.NULL;
+            text = "null";
+        } else if (value instanceof Boolean) {
+            tag = Tag.BOOL;
+            text = value.toString();
+        } else if (value instanceof Integer || value instanceof Long || value instanceof Short
+                || value instanceof Byte || value instanceof BigInteger) {
+            tag = Tag.INT;
+            text = value.toString();
+        } else if (value instanceof Double || value instanceof Float || value instanceof BigDecimal) {
+            tag = Tag.FLOAT;
+            text = floatText((Number) value);
+        } else {
+            tag = Tag.STR;
+            text = value.toString();
+        }
+        // plain when the text reads back with the same tag, otherwise quoted (strings) or explicitly tagged
+        boolean plain = resolver.resolve(NodeId.scalar, text, true).equals(tag);
+        ImplicitTuple implicit = new ImplicitTuple(plain, tag.equals(Tag.STR));
+        // multi-line strings as literal blocks, like SnakeYAML's representer
+        DumperOptions.ScalarStyle style = (tag.equals(Tag.STR) && MULTILINE.matcher(text).find())
+                ? DumperOptions.ScalarStyle.LITERAL : DumperOptions.ScalarStyle.PLAIN;
+        boolean document = depth == 0;
+        if (document) begin();
+        emitter.emit(new ScalarEvent(null, tag.getValue(), implicit, text, null, null, style));
+        if (document) end();
+    }
+
+    private static String floatText(Number value) {
+        double d = value.doubleValue();
+        if (Double.isNaN(d)) return ".NaN";
+        if (Double.isInfinite(d)) return (d > 0) ? ".inf" : "-.inf";
+        return value.toString();
+    }
+
+    private void begin() throws IOException {
+        if (depth++ == 0) {
+            emitter.emit(new StreamStartEvent(null, null));
+            emitter.emit(new DocumentStartEvent(null, null, false, null, null));
+        }
+    }
+
+    private void end() throws IOException {
+        if (--depth == 0) {
+            emitter.emit(new DocumentEndEvent(null, null, false));
+            emitter.emit(new StreamEndEvent(null, null));
+        }
+    }
+}
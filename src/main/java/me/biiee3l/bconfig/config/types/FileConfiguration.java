@@ -0,0 +1,261 @@
+package me.biiee3l.bconfig.config.types;
+
+import me.biiee3l.bconfig.config.Configuration;
+import me.biiee3l.bconfig.config.ConfigurationJournal;
+import me.biiee3l.bconfig.config.ValueCodec;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Configuration stored in a single file. Subclasses only convert between the file format and a Map tree.
+ *
+ * Without a journal every save() rewrites the whole file. With {@link #enableJournal()} every set, remove, merge and
+ * clear is appended to a {@code <file>.journal} log as it happens, save() costs nothing as long as the log is small,
+ * and the file is only rewritten when the log is compacted on a background thread. load() replays the log over the
+ * file, so journaled changes survive a restart even if they were never compacted. Records survive a crash of the JVM;
+ * enable the journal in sync mode ({@link #enableJournal(long, boolean)}) for them to survive a power loss too.
+ */
+public abstract class FileConfiguration extends Configuration {
+
+    /**
+     * Journal size in bytes above which save() triggers a background compaction.
+     */
+    public static final long DEFAULT_COMPACT_THRESHOLD = 1024 * 1024;
+
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "bConfig-journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final File file;
+
+    private volatile long compactThreshold = DEFAULT_COMPACT_THRESHOLD;
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    /**
+     * Held by every rewrite of the file, from taking the snapshot to deleting the rotated journal, so that an older
+     * snapshot can never replace a newer one.
+     */
+    private final ReentrantLock rewrite = new ReentrantLock();
+
+    protected FileConfiguration(File file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the configuration file
+     */
+    public File getFile() {
+        return file;
+    }
+
+    // --------------------
+    // Format
+    // --------------------
+
+    /**
+     * Parses the file content.
+     *
+     * @param reader file content
+     * @return parsed tree, or null for an empty file
+     * @throws IOException on read or parse errors
+     */
+    protected abstract Map<?, ?> readSnapshot(Reader reader) throws IOException;
+
+    /**
+     * Called once a tree returned by {@link #readSnapshot(Reader)} has replaced the root, i.e. only if the load
+     * succeeded. Lets a format keep what it parsed besides the tree.
+     *
+     * @param snapshot tree returned by readSnapshot
+     */
+    protected void snapshotLoaded(Map<?, ?> snapshot) {
+    }
+
+    /**
+     * Writes a whole tree in the file format.
+     *
+     * @param tree   tree to write
+     * @param writer target
+     * @throws IOException on write errors
+     */
+    protected abstract void writeSnapshot(Map<String, Object> tree, Writer writer) throws IOException;
+
+    // --------------------
+    // Load / save
+    // --------------------
+
+    @Override
+    public void save() {
+        ConfigurationJournal journal = getJournal();
+        if (journal == null) {
+            rewrite.lock();
+            try {
+                writeFile(root);
+            } catch (Exception e) {
+                e.printStackTrace(System.out);
+            } finally {
+                rewrite.unlock();
+            }
+            return;
+        }
+        // every change is already in the journal, only fold it into the file once it has grown enough
+        if (journal.size() >= compactThreshold) compactInBackground();
+    }
+
+    @Override
+    public boolean load() {
+        try {
+            if (file.getParentFile() != null) file.getParentFile().mkdirs();
+            if (!file.exists()) file.createNewFile();
+
+            try (Reader reader = new InputStreamReader(Files.newInputStream(file.toPath()), StandardCharsets.UTF_8)) {
+                Map<?, ?> snapshot = readSnapshot(reader);
+                loadRoot(snapshot, getJournal());
+                snapshotLoaded(snapshot);
+            }
+            return true;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace(System.out);
+            return false;
+        }
+    }
+
+    /**
+     * Writes the tree to a temporary file next to the configuration and moves it over the configuration, so readers
+     * never see a half-written file. Call with {@link #rewrite} held.
+     */
+    private void writeFile(Map<String, Object> tree) throws IOException {
+        Path dir = file.getAbsoluteFile().getParentFile().toPath();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getName(), ".tmp");
+        try {
+            // temporary files are owner-only, keep the permissions the file already had
+            if (file.exists() && Files.getFileStore(dir).supportsFileAttributeView(PosixFileAttributeView.class)) {
+                Files.setPosixFilePermissions(tmp, Files.getPosixFilePermissions(file.toPath()));
+            }
+            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(tmp), StandardCharsets.UTF_8)) {
+                writeSnapshot(tree, writer);
+            }
+            Files.move(tmp, file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // --------------------
+    // Journal
+    // --------------------
+
+    /**
+     * Enables the write-ahead journal with the default compaction threshold. Call before load() so that a journal
+     * left by a previous run is replayed.
+     */
+    public void enableJournal() {
+        enableJournal(DEFAULT_COMPACT_THRESHOLD);
+    }
+
+    /**
+     * Enables the write-ahead journal. Call before load() so that a journal left by a previous run is replayed.
+     *
+     * @param compactThreshold journal size in bytes above which save() triggers a background compaction
+     */
+    public void enableJournal(long compactThreshold) {
+        enableJournal(compactThreshold, false);
+    }
+
+    /**
+     * Enables the write-ahead journal. Call before load() so that a journal left by a previous run is replayed.
+     *
+     * @param compactThreshold journal size in bytes above which save() triggers a background compaction
+     * @param sync             whether every change is forced to the storage device before it returns; one disk
+     *                         flush per change, but no change is lost on a power loss or an OS crash
+     */
+    public synchronized void enableJournal(long compactThreshold, boolean sync) {
+        this.compactThreshold = compactThreshold;
+        ConfigurationJournal journal = getJournal();
+        if (journal == null || journal.isSync() != sync) {
+            if (journal != null) closeQuietly(journal);
+            setJournal(new ConfigurationJournal(new File(file.getPath() + ".journal"), sync));
+        }
+    }
+
+    private static void closeQuietly(ConfigurationJournal journal) {
+        try {
+            journal.close();
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Folds the journal into the file and stops journaling; later saves rewrite the whole file again.
+     */
+    public synchronized void disableJournal() {
+        ConfigurationJournal journal = getJournal();
+        if (journal == null) return;
+        setJournal(null);
+        rewrite.lock();
+        try {
+            journal.compact(this, this::writeFile);
+            journal.delete();
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+        } finally {
+            rewrite.unlock();
+        }
+    }
+
+    /**
+     * @return true if changes are journaled
+     */
+    public boolean isJournalEnabled() {
+        return getJournal() != null;
+    }
+
+    /**
+     * Registers a codec as {@link Configuration#setValueCodec} does. With a journal, a value that had to be encoded is
+     * also still in plain form in the file, so the file is compacted right away instead of keeping it until the next
+     * compaction.
+     */
+    @Override
+    public void setValueCodec(String path, ValueCodec codec) {
+        ConfigurationJournal journal = getJournal();
+        long before = (journal != null) ? journal.size() : 0;
+        super.setValueCodec(path, codec);
+        if (journal != null && journal.size() != before) compact();
+    }
+
+    /**
+     * Rewrites the file from the current tree and truncates the journal. Does nothing without a journal.
+     */
+    public void compact() {
+        ConfigurationJournal journal = getJournal();
+        if (journal == null) return;
+        rewrite.lock();
+        try {
+            journal.compact(this, this::writeFile);
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+        } finally {
+            rewrite.unlock();
+        }
+    }
+
+    private void compactInBackground() {
+        if (!compactionQueued.compareAndSet(false, true)) return;
+        COMPACTOR.execute(() -> {
+            compactionQueued.set(false);
+            compact();
+        });
+    }
+}
@@ -0,0 +1,140 @@
+package me.biiee3l.bconfig.config.types;
+
+import me.biiee3l.bconfig.config.Configuration;
+import me.biiee3l.bconfig.config.ConfigurationReferenceException;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Configuration persisted to an in-memory snapshot, for tests.
+ *
+ * save() stores a deep copy of the tree and load() reloads it, so a test can check what was persisted without any IO.
+ * Latency and failures can be injected into load and save to exercise slow or broken backends deterministically:
+ * failures are counted down ({@link #failNextLoads(int)}, {@link #failNextSaves(int)}) rather than random, and a
+ * failed operation behaves like a failed file backend (load returns false, neither changes the stored snapshot).
+ */
+public class InMemoryConfiguration extends Configuration {
+
+    private volatile Map<String, Object> stored;
+
+    private volatile long latencyNanos;
+    private final AtomicInteger loadFailures = new AtomicInteger();
+    private final AtomicInteger saveFailures = new AtomicInteger();
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong saves = new AtomicLong();
+
+    public InMemoryConfiguration() {
+        this(null);
+    }
+
+    /**
+     * @param initial snapshot returned by the first load, copied; null for an empty one
+     */
+    public InMemoryConfiguration(Map<String, Object> initial) {
+        this.stored = (initial != null) ? deepCopyMap(initial) : null;
+    }
+
+    @Override
+    public synchronized boolean load() {
+        try {
+            persistence(loads, loadFailures, "load");
+            loadRoot(stored);
+            return true;
+        } catch (IOException | ConfigurationReferenceException e) {
+            e.printStackTrace(System.out);
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized void save() {
+        try {
+            persistence(saves, saveFailures, "save");
+            stored = toMap();
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+        }
+    }
+
+    /**
+     * Simulates the IO of a load or save: waits for the injected latency, then fails if a failure is pending.
+     */
+    private void persistence(AtomicLong calls, AtomicInteger failures, String operation) throws IOException {
+        calls.incrementAndGet();
+        long nanos = latencyNanos;
+        if (nanos > 0) {
+            long deadline = System.nanoTime() + nanos;
+            for (long left = nanos; left > 0; left = deadline - System.nanoTime()) {
+                LockSupport.parkNanos(left);
+            }
+        }
+        if (failures.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            throw new IOException("Injected " + operation + " failure");
+        }
+    }
+
+    // --------------------
+    // Injection
+    // --------------------
+
+    /**
+     * Delays every load and save.
+     *
+     * @param latency delay, 0 for none
+     * @param unit    unit of latency
+     */
+    public void setLatency(long latency, TimeUnit unit) {
+        if (latency < 0) throw new IllegalArgumentException("latency < 0");
+        this.latencyNanos = unit.toNanos(latency);
+    }
+
+    /**
+     * Makes the next count loads fail.
+     *
+     * @param count number of loads to fail
+     */
+    public void failNextLoads(int count) {
+        if (count < 0) throw new IllegalArgumentException("count < 0");
+        loadFailures.set(count);
+    }
+
+    /**
+     * Makes the next count saves fail.
+     *
+     * @param count number of saves to fail
+     */
+    public void failNextSaves(int count) {
+        if (count < 0) throw new IllegalArgumentException("count < 0");
+        saveFailures.set(count);
+    }
+
+    // --------------------
+    // Inspection
+    // --------------------
+
+    /**
+     * @return last saved snapshot (immutable), or null if nothing was ever stored
+     */
+    public Map<String, Object> getStored() {
+        return stored;
+    }
+
+    /**
+     * @return number of load calls, failed ones included
+     */
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    /**
+     * @return number of save calls, failed ones included
+     */
+    public long getSaveCount() {
+        return saves.get();
+    }
+}
@@ -1,59 +1,27 @@
 package me.biiee3l.bconfig.config.types;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
-import me.biiee3l.bconfig.config.Configuration;
-import java.util.concurrent.ConcurrentHashMap;
 
 import java.io.*;
 import java.lang.reflect.Type;
 import java.util.Map;
 
-public class JsonConfiguration extends Configuration {
+public class JsonConfiguration extends FileConfiguration {
 
-    private final File file;
+    private static final Type TYPE = new TypeToken<Map<String, Object>>() {}.getType();
 
     public JsonConfiguration(File file){
-        this.file = file;
+        super(file);
     }
 
     @Override
-    public void save() {
-        try {
-            Reader reader = new FileReader(file);
-            Type type = new TypeToken<Map<String, Object>>() {}.getType();
-            Map<String, Object> data = new Gson().fromJson(reader, type);
-
-            data.putAll(root);
-
-            Writer writer = new FileWriter(file);
-            new Gson().toJson(data, writer);
-            writer.close();
-            reader.close();
-        } catch (Exception e) {
-            e.printStackTrace(System.out);
-        }
+    protected Map<?, ?> readSnapshot(Reader reader) {
+        return new Gson().fromJson(reader, TYPE);
     }
 
-    public boolean load() {
-        try{
-            if (file.getParentFile() != null) file.getParentFile().mkdirs();
-            if(!file.exists()){
-                file.createNewFile();
-            }
-
-            GsonBuilder gsonBuilder = new GsonBuilder();
-            Reader reader = new FileReader(file);
-
-            Type type = new TypeToken<Map<String, Object>>() {}.getType();
-
-            Map<String, Object> config = gsonBuilder.create().fromJson(reader, type);
-            if(root != null) this.root = new ConcurrentHashMap<>(root);
-            return true;
-        }catch (Exception e){
-            e.printStackTrace(System.out);
-            return false;
-        }
+    @Override
+    protected void writeSnapshot(Map<String, Object> tree, Writer writer) {
+        new Gson().toJson(tree, writer);
     }
 }
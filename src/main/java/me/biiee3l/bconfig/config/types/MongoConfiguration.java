@@ -1,10 +1,14 @@
 package me.biiee3l.bconfig.config.types;
 
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
 import me.biiee3l.bconfig.config.Configuration;
-import java.util.concurrent.ConcurrentHashMap;
+import me.biiee3l.bconfig.config.ConfigurationReferenceException;
+import me.biiee3l.bconfig.config.stream.MapConfigurationWriter;
 import org.bson.Document;
 
+import java.io.IOException;
+
 public class MongoConfiguration extends Configuration {
 
     private final Document query;
@@ -15,20 +19,33 @@ public class MongoConfiguration extends Configuration {
         this.collection = collection;
     }
 
+    /**
+     * Replaces the document matching the query with the tree, inserting it if there is none.
+     */
     @Override
     public void save() {
-        Document document = new Document(root);
-        collection.deleteMany(document);
-        collection.insertOne(document);
+        MapConfigurationWriter writer = new MapConfigurationWriter(Document::new);
+        try {
+            write(writer);
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+            return;
+        }
+        collection.replaceOne(query, (Document) writer.getSection(), new ReplaceOptions().upsert(true));
     }
 
     @Override
     public boolean load() {
         Document document = collection.find(query).first();
-        if(document != null){
-            root = new ConcurrentHashMap<>(document);
-        }else {
-            root = new ConcurrentHashMap<>(query);
+        try {
+            if(document != null){
+                loadRoot(document);
+            }else {
+                loadRoot(query);
+            }
+        } catch (ConfigurationReferenceException e) {
+            e.printStackTrace(System.out);
+            return false;
         }
         return true;
     }
@@ -0,0 +1,493 @@
+package me.biiee3l.bconfig.config.types;
+
+import me.biiee3l.bconfig.config.Configuration;
+import me.biiee3l.bconfig.config.ValueCodec;
+import me.biiee3l.bconfig.config.stream.ConfigurationWriter;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Configuration shared between processes through a memory-mapped file.
+ *
+ * One process publishes a tree (see {@link #publish(Map)}) in the immutable layout described in
+ * {@link SharedTreeLayout}; every process that loads the same file maps it and reads leaves in place, without parsing
+ * or copying the tree into its own heap.
+ *
+ * The file starts with a 32 byte header: magic, format version, a sequence number used as a seqlock, the body length
+ * and the root offset. A publisher takes an exclusive file lock, makes the sequence odd, rewrites the body and makes it
+ * even again. Readers retry whenever the sequence was odd or changed while they were reading, so they never return a
+ * value from a half-written tree. The sequence number can also be polled through {@link #getVersion()} to notice
+ * updates. A publisher that dies mid-publish leaves the sequence odd without holding the lock: load() then fails and
+ * readers throw an IllegalStateException instead of waiting, until a loaded instance publishes a new tree.
+ *
+ * Local mutations (set, remove, merge, ...) first copy the shared tree into {@link #root}; from then on reads are
+ * served from that copy until {@link #save()} publishes it. Staging and the mutation itself are atomic with respect to
+ * save() and load(), so a change is either published by a save or still staged after it, never lost in between.
+ * Maps returned by {@link #getOrCreateSection(String, boolean)} belong to the staged copy: writes made to them after
+ * the next save() are not published.
+ */
+public class SharedMemoryConfiguration extends Configuration implements Closeable {
+
+    private static final int MAGIC = 0x62434647; // "bCFG"
+    private static final int FORMAT = 1;
+    private static final int SEQ_OFFSET = 8;
+    private static final int LENGTH_OFFSET = 16;
+    private static final int ROOT_OFFSET = 20;
+    private static final int HEADER = 32;
+    /**
+     * Retries a reader busy-spins before it starts parking.
+     */
+    private static final int SPINS = 100;
+    private static final long MAX_PARK_NANOS = 1_000_000L;
+    /**
+     * How long a reader waits for a live publisher before giving up.
+     */
+    private static final long MAX_WAIT_NANOS = 10_000_000_000L;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final File file;
+    private FileChannel channel;
+    private volatile MappedByteBuffer buffer;
+
+    /**
+     * True once local changes have been copied into root and not published yet.
+     */
+    private volatile boolean staged;
+
+    /**
+     * Held shared by local changes and exclusively by staging, save() and load(), which replace root.
+     */
+    private final ReentrantReadWriteLock staging = new ReentrantReadWriteLock();
+
+    /**
+     * Shared version resolved references were memoized against.
+     */
+    private volatile long referencesVersion;
+
+    public SharedMemoryConfiguration(File file) {
+        this.file = file;
+    }
+
+    // --------------------
+    // Load / publish
+    // --------------------
+
+    @Override
+    public boolean load() {
+        staging.writeLock().lock();
+        try {
+            synchronized (this) {
+                if (file.getParentFile() != null) file.getParentFile().mkdirs();
+                close();
+                channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                        StandardOpenOption.WRITE);
+                FileLock lock = channel.lock();
+                try {
+                    if (channel.size() < HEADER) {
+                        // new file: publish an empty tree so readers always find a valid header
+                        SharedTreeLayout.Encoded empty = SharedTreeLayout.encode(Collections.emptyMap());
+                        ensureCapacity(HEADER + empty.body.length);
+                        write(empty);
+                    } else {
+                        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+                    }
+                    if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT) {
+                        throw new IOException("Not a shared configuration file: " + file);
+                    }
+                    // nobody can be publishing while we hold the lock
+                    if (((long) LONGS.getVolatile(buffer, SEQ_OFFSET) & 1) != 0) throw new IOException(torn());
+                } finally {
+                    lock.release();
+                }
+                staged = false;
+                loadRoot(null);
+                return true;
+            }
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+            closeQuietly();
+            return false;
+        } finally {
+            staging.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Publishes local changes, if any, to every process mapping the file.
+     */
+    @Override
+    public void save() {
+        staging.writeLock().lock();
+        try {
+            if (!staged) return;
+            publish(root);
+            staged = false;
+            loadRoot(null);
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+        } finally {
+            staging.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the shared tree with the given one.
+     *
+     * @param tree tree to publish
+     * @throws IOException if the file can't be locked or grown
+     */
+    public synchronized void publish(Map<String, ?> tree) throws IOException {
+        if (channel == null) throw new IllegalStateException("Not loaded: " + file);
+        SharedTreeLayout.Encoded encoded = SharedTreeLayout.encode(tree);
+        FileLock lock = channel.lock();
+        try {
+            ensureCapacity(HEADER + encoded.body.length);
+            write(encoded);
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Grows the file and the mapping to at least needed bytes. Call with the file lock held.
+     */
+    private void ensureCapacity(int needed) throws IOException {
+        long size = channel.size();
+        if (size < needed) {
+            // grow with some headroom so that small updates don't remap every time
+            channel.write(ByteBuffer.allocate(1), Math.max(needed, size + size / 2) - 1);
+        }
+        if (buffer == null || buffer.capacity() < needed) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+    }
+
+    /**
+     * Writes the encoded tree under the seqlock. Call with the file lock held.
+     */
+    private void write(SharedTreeLayout.Encoded encoded) {
+        MappedByteBuffer buf = buffer;
+        long seq = (long) LONGS.getVolatile(buf, SEQ_OFFSET);
+        // a writer that died mid-publish leaves the sequence odd
+        if ((seq & 1) != 0) seq++;
+        LONGS.setVolatile(buf, SEQ_OFFSET, seq + 1);
+        VarHandle.storeStoreFence();
+        buf.putInt(0, MAGIC);
+        buf.putInt(4, FORMAT);
+        buf.put(HEADER, encoded.body);
+        buf.putInt(LENGTH_OFFSET, encoded.body.length);
+        buf.putInt(ROOT_OFFSET, encoded.rootOffset);
+        LONGS.setRelease(buf, SEQ_OFFSET, seq + 2);
+    }
+
+    /**
+     * @return sequence number of the shared tree; it changes on every publish
+     */
+    public long getVersion() {
+        MappedByteBuffer buf = buffer;
+        return (buf != null) ? (long) LONGS.getAcquire(buf, SEQ_OFFSET) : 0L;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer = null;
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (IOException e) {
+            e.printStackTrace(System.out);
+        }
+    }
+
+    // --------------------
+    // Seqlock reads
+    // --------------------
+
+    /**
+     * Runs fn against a consistent version of the shared tree, retrying while a publish is in progress.
+     */
+    private <T> T read(Function<ByteBuffer, T> fn) {
+        long start = System.nanoTime();
+        for (int attempt = 0; ; attempt++) {
+            if (attempt > 0) backOff(attempt, start);
+            MappedByteBuffer buf = buffer;
+            if (buf == null) throw new IllegalStateException("Not loaded: " + file);
+            long before = (long) LONGS.getAcquire(buf, SEQ_OFFSET);
+            if ((before & 1) != 0) {
+                if (attempt >= SPINS && publisherDied(buf, before)) throw new IllegalStateException(torn());
+                continue;
+            }
+            if (HEADER + buf.getInt(LENGTH_OFFSET) > buf.capacity()) {
+                // another process grew the file
+                remap();
+                continue;
+            }
+            T result;
+            RuntimeException failure = null;
+            try {
+                result = fn.apply(buf);
+            } catch (RuntimeException e) {
+                // offsets read from a tree that was being rewritten
+                result = null;
+                failure = e;
+            }
+            VarHandle.loadLoadFence();
+            if ((long) LONGS.getVolatile(buf, SEQ_OFFSET) == before) {
+                if (failure != null) throw failure;
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Waits before the next read attempt: busy-spins first, then parks for exponentially longer, up to
+     * {@link #MAX_PARK_NANOS}, so that waiting on the publish of a large tree doesn't burn a core.
+     *
+     * @throws IllegalStateException once the reader has waited {@link #MAX_WAIT_NANOS}
+     */
+    private void backOff(int attempt, long start) {
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+            return;
+        }
+        if (System.nanoTime() - start > MAX_WAIT_NANOS) {
+            throw new IllegalStateException("Shared configuration is being rewritten for too long: " + file);
+        }
+        LockSupport.parkNanos(Math.min(1000L << Math.min(attempt - SPINS, 10), MAX_PARK_NANOS));
+    }
+
+    /**
+     * Tells a slow publisher from a dead one: a publisher holds the exclusive file lock for the whole write, so if a
+     * shared lock can be taken while the sequence is still odd, the process that made it odd died mid-publish.
+     */
+    private boolean publisherDied(MappedByteBuffer buf, long seq) {
+        FileChannel ch = channel;
+        if (ch == null) return false;
+        try {
+            FileLock lock = ch.tryLock(0, Long.MAX_VALUE, true);
+            if (lock == null) return false;
+            try {
+                return (long) LONGS.getVolatile(buf, SEQ_OFFSET) == seq;
+            } finally {
+                lock.release();
+            }
+        } catch (OverlappingFileLockException e) {
+            // the lock is held by this JVM, e.g. by a publisher on another instance
+            return false;
+        } catch (IOException e) {
+            // can't tell, keep waiting until the timeout
+            return false;
+        }
+    }
+
+    private String torn() {
+        return "Shared configuration was left half-written by a publisher that died: " + file;
+    }
+
+    private synchronized void remap() {
+        try {
+            if (channel != null) buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        } catch (IOException e) {
+            throw new IllegalStateException("Can't remap " + file, e);
+        }
+    }
+
+    private static int rootOffset(ByteBuffer buf) {
+        return buf.getInt(ROOT_OFFSET);
+    }
+
+    private static byte[][] utf8Path(String path) {
+        String[] keys = splitPath(path);
+        byte[][] utf8 = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            utf8[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return utf8;
+    }
+
+    private boolean shared() {
+        return !staged && buffer != null;
+    }
+
+    // --------------------
+    // Reads
+    // --------------------
+
+    /**
+     * References may point at values another process has published since they were resolved, so memoized values are
+     * dropped whenever the shared version changed.
+     */
+    @Override
+    public Object get(String key) {
+        if (shared() && isReferenceResolution()) {
+            long version = getVersion();
+            if (version != referencesVersion) {
+                invalidateReferences();
+                referencesVersion = version;
+            }
+        }
+        return super.get(key);
+    }
+
+    @Override
+    protected Object stored(String key) {
+        if (!shared()) return super.stored(key);
+        byte[][] path = utf8Path(Objects.requireNonNull(key, "key"));
+        return read(buf -> {
+            int offset = SharedTreeLayout.find(buf, HEADER, rootOffset(buf), path);
+            return (offset == SharedTreeLayout.MISSING) ? null : SharedTreeLayout.decode(buf, HEADER, offset);
+        });
+    }
+
+    @Override
+    public boolean contains(String path) {
+        if (!shared()) return super.contains(path);
+        byte[][] keys = utf8Path(Objects.requireNonNull(path, "path"));
+        return read(buf -> SharedTreeLayout.find(buf, HEADER, rootOffset(buf), keys) != SharedTreeLayout.MISSING);
+    }
+
+    @Override
+    public Set<String> keySet() {
+        if (!shared()) return super.keySet();
+        return new LinkedHashSet<>(read(buf -> SharedTreeLayout.keys(buf, HEADER, rootOffset(buf))));
+    }
+
+    @Override
+    public Set<String> getKeys(String path) {
+        if (!shared() || path == null || path.isEmpty()) return super.getKeys(path);
+        byte[][] keys = utf8Path(path);
+        return new LinkedHashSet<>(read(buf -> {
+            int offset = SharedTreeLayout.find(buf, HEADER, rootOffset(buf), keys);
+            return (offset == SharedTreeLayout.MISSING) ? new ArrayList<>() : SharedTreeLayout.keys(buf, HEADER, offset);
+        }));
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Map<String, Object> toMap() {
+        if (!shared()) return super.toMap();
+        return deepCopyMap((Map<String, Object>) read(buf -> SharedTreeLayout.decode(buf, HEADER, rootOffset(buf))));
+    }
+
+    /**
+     * Streams a consistent version of the shared tree. It is decoded first, since a seqlock read can't be retried once
+     * events have been handed out.
+     */
+    @Override
+    public void write(ConfigurationWriter out) throws IOException {
+        if (!shared()) {
+            super.write(out);
+            return;
+        }
+        out.value(read(buf -> SharedTreeLayout.decode(buf, HEADER, rootOffset(buf))));
+    }
+
+    // --------------------
+    // Local changes
+    // --------------------
+
+    /**
+     * Runs a local change against root. The shared tree is first copied into root if needed, and save() and load() are
+     * held off until the change is done, so that it can't land in a root they are about to drop.
+     */
+    private <T> T change(Supplier<T> mutation) {
+        staging.readLock().lock();
+        try {
+            if (shared()) {
+                staging.readLock().unlock();
+                staging.writeLock().lock();
+                try {
+                    stage();
+                } finally {
+                    // downgrade: the change runs with the tree staged and save() held off
+                    staging.readLock().lock();
+                    staging.writeLock().unlock();
+                }
+            }
+            return mutation.get();
+        } finally {
+            staging.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the shared tree into root before the first local change. Call with the staging write lock held.
+     */
+    @SuppressWarnings("unchecked")
+    private void stage() {
+        if (!shared()) return;
+        loadRoot((Map<String, Object>) read(buf -> SharedTreeLayout.decode(buf, HEADER, rootOffset(buf))));
+        staged = true;
+    }
+
+    @Override
+    public void set(String key, Object value) {
+        change(() -> {
+            super.set(key, value);
+            return null;
+        });
+    }
+
+    @Override
+    public Object remove(String path) {
+        return change(() -> super.remove(path));
+    }
+
+    @Override
+    public void clear() {
+        change(() -> {
+            super.clear();
+            return null;
+        });
+    }
+
+    @Override
+    public void merge(Map<String, Object> other, boolean overwrite) {
+        change(() -> {
+            super.merge(other, overwrite);
+            return null;
+        });
+    }
+
+    @Override
+    public Map<String, Object> getOrCreateSection(String path, boolean create) {
+        return change(() -> super.getOrCreateSection(path, create));
+    }
+
+    @Override
+    public void setValueCodec(String path, ValueCodec codec) {
+        change(() -> {
+            super.setValueCodec(path, codec);
+            return null;
+        });
+    }
+
+    @Override
+    public ValueCodec removeValueCodec(String path) {
+        return change(() -> super.removeValueCodec(path));
+    }
+}
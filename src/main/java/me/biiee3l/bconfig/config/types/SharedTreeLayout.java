@@ -0,0 +1,285 @@
+package me.biiee3l.bconfig.config.types;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable binary layout of a configuration tree, designed to be read in place from a mapped buffer.
+ *
+ * Every value starts with a one byte tag:
+ * <pre>
+ * STRING  int length, UTF-8 bytes
+ * INT     int          LONG    long          DOUBLE  double
+ * TRUE / FALSE / NULL  no payload
+ * SECTION int count, count x (int keyOffset, int valueOffset), sorted by unsigned UTF-8 key bytes
+ * LIST    int count, count x int valueOffset
+ * </pre>
+ * Keys are stored as int length + UTF-8 bytes. Offsets are relative to the start of the body; children are written
+ * before the table that points to them. A lookup binary-searches each section table comparing raw bytes, so only the
+ * leaf that is asked for is ever decoded. Numbers are big-endian.
+ *
+ * Readers may run against a tree that is being rewritten (see {@link SharedMemoryConfiguration}), so lengths and
+ * offsets are bounds-checked and children must come before their parent; a torn read fails with an
+ * {@link IndexOutOfBoundsException} instead of allocating garbage sizes or looping.
+ */
+final class SharedTreeLayout {
+
+    static final byte NULL = 0;
+    static final byte STRING = 1;
+    static final byte INT = 2;
+    static final byte LONG = 3;
+    static final byte DOUBLE = 4;
+    static final byte TRUE = 5;
+    static final byte FALSE = 6;
+    static final byte SECTION = 7;
+    static final byte LIST = 8;
+
+    /**
+     * Returned by {@link #find} when the path does not exist.
+     */
+    static final int MISSING = -1;
+
+    private SharedTreeLayout() {
+    }
+
+    // --------------------
+    // Encoding
+    // --------------------
+
+    /**
+     * Encoded body plus the offset of its root section.
+     */
+    static final class Encoded {
+        final byte[] body;
+        final int rootOffset;
+
+        Encoded(byte[] body, int rootOffset) {
+            this.body = body;
+            this.rootOffset = rootOffset;
+        }
+    }
+
+    static Encoded encode(Map<?, ?> root) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            int rootOffset = encodeSection(out, root);
+            out.flush();
+            return new Encoded(bytes.toByteArray(), rootOffset);
+        } catch (IOException e) {
+            // ByteArrayOutputStream never throws
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static int encodeValue(DataOutputStream out, Object value) throws IOException {
+        if (value instanceof Map<?, ?>) return encodeSection(out, (Map<?, ?>) value);
+        if (value instanceof List<?>) return encodeList(out, (List<?>) value);
+        int offset = out.size();
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            out.writeByte(INT);
+            out.writeInt(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            out.writeByte(DOUBLE);
+            out.writeDouble(((Number) value).doubleValue());
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else {
+            byte[] utf8 = value.toString().getBytes(StandardCharsets.UTF_8);
+            out.writeByte(STRING);
+            out.writeInt(utf8.length);
+            out.write(utf8);
+        }
+        return offset;
+    }
+
+    private static int encodeSection(DataOutputStream out, Map<?, ?> section) throws IOException {
+        List<byte[]> keys = new ArrayList<>(section.size());
+        List<int[]> entries = new ArrayList<>(section.size());
+        for (Map.Entry<?, ?> e : section.entrySet()) {
+            if (e.getValue() == null) continue;
+            byte[] key = String.valueOf(e.getKey()).getBytes(StandardCharsets.UTF_8);
+            int keyOffset = out.size();
+            out.writeInt(key.length);
+            out.write(key);
+            int valueOffset = encodeValue(out, e.getValue());
+            keys.add(key);
+            entries.add(new int[]{keys.size() - 1, keyOffset, valueOffset});
+        }
+        entries.sort((a, b) -> Arrays.compareUnsigned(keys.get(a[0]), keys.get(b[0])));
+
+        int offset = out.size();
+        out.writeByte(SECTION);
+        out.writeInt(entries.size());
+        for (int[] entry : entries) {
+            out.writeInt(entry[1]);
+            out.writeInt(entry[2]);
+        }
+        return offset;
+    }
+
+    private static int encodeList(DataOutputStream out, List<?> list) throws IOException {
+        int[] offsets = new int[list.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = encodeValue(out, list.get(i));
+        }
+        int offset = out.size();
+        out.writeByte(LIST);
+        out.writeInt(offsets.length);
+        for (int o : offsets) {
+            out.writeInt(o);
+        }
+        return offset;
+    }
+
+    // --------------------
+    // In-place reads
+    // --------------------
+
+    /**
+     * Follows a path from a section.
+     *
+     * @param buf     buffer holding the layout
+     * @param base    absolute position of the body in buf
+     * @param section body offset of the section to start from
+     * @param keys    path components, UTF-8 encoded
+     * @return body offset of the value at the path, or {@link #MISSING}
+     */
+    static int find(ByteBuffer buf, int base, int section, byte[][] keys) {
+        int offset = section;
+        for (byte[] key : keys) {
+            if (buf.get(base + offset) != SECTION) return MISSING;
+            offset = child(buf, base, offset, key);
+            if (offset == MISSING) return MISSING;
+        }
+        return offset;
+    }
+
+    private static int child(ByteBuffer buf, int base, int section, byte[] key) {
+        int table = base + section + 5;
+        int lo = 0;
+        int hi = count(buf, base + section, 8) - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareKey(buf, base + before(section, buf.getInt(table + mid * 8)), key);
+            if (cmp < 0) {
+                lo = mid + 1;
+            } else if (cmp > 0) {
+                hi = mid - 1;
+            } else {
+                return before(section, buf.getInt(table + mid * 8 + 4));
+            }
+        }
+        return MISSING;
+    }
+
+    /**
+     * Compares the key stored at pos with the given key bytes, unsigned and lexicographically.
+     */
+    private static int compareKey(ByteBuffer buf, int pos, byte[] key) {
+        int len = buf.getInt(pos);
+        if (len < 0 || len > buf.limit() - pos - 4) throw new IndexOutOfBoundsException("Bad length " + len + " at " + pos);
+        int n = Math.min(len, key.length);
+        for (int i = 0; i < n; i++) {
+            int cmp = Byte.compareUnsigned(buf.get(pos + 4 + i), key[i]);
+            if (cmp != 0) return cmp;
+        }
+        return Integer.compare(len, key.length);
+    }
+
+    /**
+     * Decodes the value at offset. Leaves are decoded on their own, sections and lists are materialized.
+     */
+    static Object decode(ByteBuffer buf, int base, int offset) {
+        int pos = base + offset;
+        switch (buf.get(pos)) {
+            case STRING:
+                return readString(buf, pos + 1);
+            case INT:
+                return buf.getInt(pos + 1);
+            case LONG:
+                return buf.getLong(pos + 1);
+            case DOUBLE:
+                return buf.getDouble(pos + 1);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case SECTION: {
+                int count = count(buf, pos, 8);
+                Map<String, Object> section = new LinkedHashMap<>(Math.max(4, count * 2));
+                for (int i = 0; i < count; i++) {
+                    int entry = pos + 5 + i * 8;
+                    String key = readString(buf, base + before(offset, buf.getInt(entry)));
+                    section.put(key, decode(buf, base, before(offset, buf.getInt(entry + 4))));
+                }
+                return section;
+            }
+            case LIST: {
+                int count = count(buf, pos, 4);
+                List<Object> list = new ArrayList<>(count);
+                for (int i = 0; i < count; i++) {
+                    list.add(decode(buf, base, before(offset, buf.getInt(pos + 5 + i * 4))));
+                }
+                return list;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * @return keys of the section at offset in stored order, or an empty list if it is not a section
+     */
+    static List<String> keys(ByteBuffer buf, int base, int offset) {
+        int pos = base + offset;
+        if (buf.get(pos) != SECTION) return new ArrayList<>();
+        int count = count(buf, pos, 8);
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(readString(buf, base + before(offset, buf.getInt(pos + 5 + i * 8))));
+        }
+        return keys;
+    }
+
+    /**
+     * Reads the entry count of the section or list at pos and checks that its table fits in the buffer.
+     */
+    private static int count(ByteBuffer buf, int pos, int entryBytes) {
+        int count = buf.getInt(pos + 1);
+        if (count < 0 || count > (buf.limit() - pos - 5) / entryBytes) {
+            throw new IndexOutOfBoundsException("Bad entry count " + count + " at " + pos);
+        }
+        return count;
+    }
+
+    /**
+     * Checks that a child offset points before its parent, as the encoder always writes it.
+     */
+    private static int before(int parent, int offset) {
+        if (offset < 0 || offset >= parent) throw new IndexOutOfBoundsException("Bad child offset " + offset);
+        return offset;
+    }
+
+    private static String readString(ByteBuffer buf, int pos) {
+        int len = buf.getInt(pos);
+        if (len < 0 || len > buf.limit() - pos - 4) throw new IndexOutOfBoundsException("Bad length " + len + " at " + pos);
+        byte[] utf8 = new byte[len];
+        buf.get(pos + 4, utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+}
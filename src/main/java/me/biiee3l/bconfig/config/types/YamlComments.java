@@ -0,0 +1,134 @@
+package me.biiee3l.bconfig.config.types;
+
+import org.yaml.snakeyaml.comments.CommentLine;
+import org.yaml.snakeyaml.nodes.MappingNode;
+import org.yaml.snakeyaml.nodes.Node;
+import org.yaml.snakeyaml.nodes.NodeTuple;
+import org.yaml.snakeyaml.nodes.ScalarNode;
+import org.yaml.snakeyaml.nodes.SequenceNode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Comments of a YAML document, captured by dotted path so they survive the round trip through the configuration tree.
+ *
+ * {@link #collect(Node)} records the comments SnakeYAML attached to the composed node graph, and {@link #apply(Node)}
+ * puts them back on the node graph represented from the live tree before it is serialized. Comments of keys that no
+ * longer exist are dropped. Sequence items are addressed as {@code path[index]}.
+ */
+final class YamlComments {
+
+    private static final class Comments {
+        List<CommentLine> keyBlock;
+        List<CommentLine> keyInline;
+        List<CommentLine> valueBlock;
+        List<CommentLine> valueInline;
+        List<CommentLine> valueEnd;
+    }
+
+    private final Map<String, Comments> byPath = new HashMap<>();
+    private List<CommentLine> rootBlock;
+    private List<CommentLine> rootEnd;
+
+    private YamlComments() {
+    }
+
+    /**
+     * @return comments holder without any comment
+     */
+    static YamlComments empty() {
+        return new YamlComments();
+    }
+
+    /**
+     * Records every comment attached to the given document node.
+     *
+     * @param document composed document node (may be null for an empty document)
+     * @return captured comments
+     */
+    static YamlComments collect(Node document) {
+        YamlComments comments = new YamlComments();
+        if (document != null) {
+            comments.rootBlock = nonEmpty(document.getBlockComments());
+            comments.rootEnd = nonEmpty(document.getEndComments());
+            comments.collectChildren(document, "");
+        }
+        return comments;
+    }
+
+    private void collectChildren(Node node, String path) {
+        if (node instanceof MappingNode) {
+            for (NodeTuple tuple : ((MappingNode) node).getValue()) {
+                if (!(tuple.getKeyNode() instanceof ScalarNode)) continue;
+                String key = ((ScalarNode) tuple.getKeyNode()).getValue();
+                collectEntry(tuple.getKeyNode(), tuple.getValueNode(), path.isEmpty() ? key : path + "." + key);
+            }
+        } else if (node instanceof SequenceNode) {
+            List<Node> items = ((SequenceNode) node).getValue();
+            for (int i = 0; i < items.size(); i++) {
+                collectEntry(null, items.get(i), path + "[" + i + "]");
+            }
+        }
+    }
+
+    private void collectEntry(Node keyNode, Node valueNode, String path) {
+        Comments c = new Comments();
+        if (keyNode != null) {
+            c.keyBlock = nonEmpty(keyNode.getBlockComments());
+            c.keyInline = nonEmpty(keyNode.getInLineComments());
+        }
+        c.valueBlock = nonEmpty(valueNode.getBlockComments());
+        c.valueInline = nonEmpty(valueNode.getInLineComments());
+        c.valueEnd = nonEmpty(valueNode.getEndComments());
+        if (c.keyBlock != null || c.keyInline != null || c.valueBlock != null || c.valueInline != null || c.valueEnd != null) {
+            byPath.put(path, c);
+        }
+        collectChildren(valueNode, path);
+    }
+
+    /**
+     * Attaches the recorded comments to a freshly represented document node.
+     *
+     * @param document represented document node
+     */
+    void apply(Node document) {
+        if (rootBlock != null) document.setBlockComments(rootBlock);
+        if (rootEnd != null) document.setEndComments(rootEnd);
+        if (!byPath.isEmpty()) applyChildren(document, "");
+    }
+
+    private void applyChildren(Node node, String path) {
+        if (node instanceof MappingNode) {
+            for (NodeTuple tuple : ((MappingNode) node).getValue()) {
+                if (!(tuple.getKeyNode() instanceof ScalarNode)) continue;
+                String key = ((ScalarNode) tuple.getKeyNode()).getValue();
+                applyEntry(tuple.getKeyNode(), tuple.getValueNode(), path.isEmpty() ? key : path + "." + key);
+            }
+        } else if (node instanceof SequenceNode) {
+            List<Node> items = ((SequenceNode) node).getValue();
+            for (int i = 0; i < items.size(); i++) {
+                applyEntry(null, items.get(i), path + "[" + i + "]");
+            }
+        }
+    }
+
+    private void applyEntry(Node keyNode, Node valueNode, String path) {
+        Comments c = byPath.get(path);
+        if (c != null) {
+            if (keyNode != null) {
+                if (c.keyBlock != null) keyNode.setBlockComments(c.keyBlock);
+                if (c.keyInline != null) keyNode.setInLineComments(c.keyInline);
+            }
+            if (c.valueBlock != null) valueNode.setBlockComments(c.valueBlock);
+            if (c.valueInline != null) valueNode.setInLineComments(c.valueInline);
+            if (c.valueEnd != null) valueNode.setEndComments(c.valueEnd);
+        }
+        applyChildren(valueNode, path);
+    }
+
+    private static List<CommentLine> nonEmpty(List<CommentLine> comments) {
+        return (comments == null || comments.isEmpty()) ? null : comments;
+    }
+}
@@ -1,61 +1,103 @@
 package me.biiee3l.bconfig.config.types;
 
-import me.biiee3l.bconfig.config.Configuration;
+import me.biiee3l.bconfig.config.SectionMapStrategies;
 import org.yaml.snakeyaml.DumperOptions;
+import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
-import java.util.concurrent.ConcurrentHashMap;
+import org.yaml.snakeyaml.constructor.Constructor;
+import org.yaml.snakeyaml.nodes.Node;
 
-import java.io.*;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.util.HashMap;
+import java.io.File;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.AbstractMap;
+import java.util.Collections;
 import java.util.Map;
+import java.util.Set;
 
-public class YamlConfiguration extends Configuration {
+/**
+ * YAML file configuration.
+ *
+ * Sections use {@link SectionMapStrategies#ORDERED} by default and comments are captured on load, so a load/save
+ * round trip keeps both the key order and the comments of the file.
+ */
+public class YamlConfiguration extends FileConfiguration {
 
-    private final File file;
+    /**
+     * Comments of the last loaded file, re-attached on save.
+     */
+    private volatile YamlComments comments = YamlComments.empty();
 
     public YamlConfiguration(File file) {
-        this.file = file;
+        super(file);
+        setSectionMapStrategy(SectionMapStrategies.ORDERED);
     }
 
     @Override
-    public void save() {
-        try {
-            if (file.getParentFile() != null) file.getParentFile().mkdirs();
-
-            DumperOptions options = new DumperOptions();
-            options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
-            options.setIndent(2);
-            options.setPrettyFlow(true);
-
-            Yaml yaml = new Yaml(options);
-
-            try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
-                yaml.dump(root, writer);
-            }
-        } catch (Exception e) {
-            e.printStackTrace(System.out);
-        }
+    protected Map<?, ?> readSnapshot(Reader reader) {
+        LoaderOptions options = new LoaderOptions();
+        options.setProcessComments(true);
+        NodeConstructor constructor = new NodeConstructor(options);
+        Yaml yaml = new Yaml(constructor);
+
+        // compose once, then take both the comments and the data from the same node graph
+        Node document = yaml.compose(reader);
+        Object loaded = (document != null) ? constructor.construct(document) : null;
+        Map<?, ?> tree = (loaded instanceof Map) ? (Map<?, ?>) loaded : Collections.emptyMap();
+        // kept with the tree, only attached once the tree has been loaded
+        return new CommentedTree(tree, YamlComments.collect(document));
+    }
+
+    @Override
+    protected void snapshotLoaded(Map<?, ?> snapshot) {
+        this.comments = (snapshot instanceof CommentedTree) ? ((CommentedTree) snapshot).comments : YamlComments.empty();
     }
 
     @Override
-    public boolean load() {
-        try {
-            if (file.getParentFile() != null) file.getParentFile().mkdirs();
-            if (!file.exists()) file.createNewFile();
-
-            Yaml yaml = new Yaml();
-            try (InputStream inputStream = Files.newInputStream(file.toPath());
-                 InputStreamReader reader = new InputStreamReader(inputStream, StandardCharsets.UTF_8)) {
-
-                Map<String, Object> loaded = yaml.load(reader);
-                this.root = (loaded != null) ? new ConcurrentHashMap<>(loaded) : new ConcurrentHashMap<>();
-                return true;
-            }
-        } catch (IOException e) {
-            e.printStackTrace(System.out);
-            return false;
+    protected void writeSnapshot(Map<String, Object> tree, Writer writer) {
+        DumperOptions options = new DumperOptions();
+        options.setDefaultFlowStyle(DumperOptions.FlowStyle.BLOCK);
+        options.setIndent(2);
+        options.setPrettyFlow(true);
+        options.setProcessComments(true);
+
+        Yaml yaml = new Yaml(options);
+        Node document = yaml.represent(tree);
+        comments.apply(document);
+        yaml.serialize(document, writer);
+    }
+
+    /**
+     * Parsed tree together with the comments of the file it was read from.
+     */
+    private static final class CommentedTree extends AbstractMap<Object, Object> {
+
+        private final Map<?, ?> tree;
+        private final YamlComments comments;
+
+        CommentedTree(Map<?, ?> tree, YamlComments comments) {
+            this.tree = tree;
+            this.comments = comments;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Set<Entry<Object, Object>> entrySet() {
+            return (Set<Entry<Object, Object>>) (Set<?>) tree.entrySet();
+        }
+    }
+
+    /**
+     * Constructor that builds Java objects from an already composed node graph.
+     */
+    private static final class NodeConstructor extends Constructor {
+
+        NodeConstructor(LoaderOptions options) {
+            super(options);
+        }
+
+        Object construct(Node document) {
+            return constructDocument(document);
         }
     }
 }
@@ -0,0 +1,68 @@
+package me.biiee3l.bconfig.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Allocation and latency measurements for budget assertions.
+ *
+ * Allocations are read from the current thread's allocation counter, so they are exact and deterministic once the
+ * code is warmed up (JIT compiled). Latencies are the median of several timed batches, which filters out GC pauses
+ * and scheduling noise; budgets should still leave generous headroom over what a laptop measures.
+ */
+public final class Budgets {
+
+    private static final int WARMUP = 20_000;
+    private static final int BATCHES = 15;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Budgets() {
+    }
+
+    /**
+     * @param op         operation to measure
+     * @param iterations operations per measurement
+     * @return bytes allocated per operation by the current thread, after warming up
+     */
+    public static double allocatedBytesPerOp(Runnable op, int iterations) {
+        for (int i = 0; i < WARMUP; i++) op.run();
+        long id = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(id);
+        for (int i = 0; i < iterations; i++) op.run();
+        long after = THREADS.getThreadAllocatedBytes(id);
+        return (double) (after - before) / iterations;
+    }
+
+    /**
+     * @param op         operation to measure
+     * @param iterations operations per batch
+     * @return median nanoseconds per operation over the timed batches, after warming up
+     */
+    public static double medianNanosPerOp(Runnable op, int iterations) {
+        for (int i = 0; i < WARMUP; i++) op.run();
+        double[] batches = new double[BATCHES];
+        for (int b = 0; b < BATCHES; b++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) op.run();
+            batches[b] = (double) (System.nanoTime() - start) / iterations;
+        }
+        Arrays.sort(batches);
+        return batches[BATCHES / 2];
+    }
+
+    public static void assertAllocatesAtMost(long bytesPerOp, Runnable op, String name) {
+        double measured = allocatedBytesPerOp(op, 10_000);
+        assertTrue(measured <= bytesPerOp,
+                name + " allocates " + measured + " bytes/op, budget is " + bytesPerOp);
+    }
+
+    public static void assertTakesAtMost(long nanosPerOp, Runnable op, String name) {
+        double measured = medianNanosPerOp(op, 10_000);
+        assertTrue(measured <= nanosPerOp,
+                name + " takes " + measured + " ns/op, budget is " + nanosPerOp);
+    }
+}
@@ -0,0 +1,331 @@
+package me.biiee3l.bconfig.config;
+
+import me.biiee3l.bconfig.config.types.InMemoryConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConfigurationTest {
+
+    private static InMemoryConfiguration loaded(SectionMapStrategy strategy, Map<String, Object> tree) {
+        InMemoryConfiguration config = new InMemoryConfiguration(tree);
+        config.setSectionMapStrategy(strategy);
+        assertTrue(config.load());
+        return config;
+    }
+
+    private static Map<String, Object> sample() {
+        Map<String, Object> db = new LinkedHashMap<>();
+        db.put("host", "localhost");
+        db.put("port", 5432);
+        db.put("ratio", 0.75);
+        db.put("enabled", true);
+        Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put("db", db);
+        tree.put("name", "app");
+        tree.put("ids", Arrays.asList(1, 2, 3));
+        tree.put("big", 12345678901L);
+        return tree;
+    }
+
+    // --------------------
+    // Getters
+    // --------------------
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    void typedGettersReadLoadedTree(SectionMapStrategies strategy) {
+        Configuration config = loaded(strategy, sample());
+
+        assertEquals("localhost", config.getString("db.host"));
+        assertEquals(5432, config.getInt("db.port"));
+        assertEquals(5432L, config.getLong("db.port"));
+        assertEquals(0.75, config.getDouble("db.ratio"));
+        assertTrue(config.getBoolean("db.enabled"));
+        assertEquals(12345678901L, config.getLong("big"));
+        assertEquals(Arrays.asList(1, 2, 3), config.getIntegerList("ids"));
+        assertEquals(Arrays.asList(1L, 2L, 3L), config.getLongList("ids"));
+    }
+
+    @Test
+    void typedGettersParseStringsAndFallBackToDefaults() {
+        Configuration config = new InMemoryConfiguration();
+        config.set("n", "42");
+        config.set("d", "2.5");
+        config.set("b", "true");
+        config.set("bad", "x");
+
+        assertEquals(42, config.getInt("n"));
+        assertEquals(42L, config.getLong("n"));
+        assertEquals(2.5, config.getDouble("d"));
+        assertTrue(config.getBoolean("b"));
+        assertEquals(0, config.getInt("bad"));
+        assertEquals(0, config.getInt("missing"));
+        assertNull(config.getString("missing"));
+        assertFalse(config.getBoolean("missing"));
+        assertTrue(config.getList("missing").isEmpty());
+        assertEquals("fallback", config.getOrDefault("missing", "fallback"));
+        assertEquals("42", config.getOrDefault("n", "fallback"));
+    }
+
+    @Test
+    void listGettersFilterAndConvert() {
+        Configuration config = new InMemoryConfiguration();
+        config.set("mixed", Arrays.asList("a", 1, 2L, "3", null));
+
+        assertEquals(Arrays.asList("a", "1", "2", "3"), config.getStringList("mixed"));
+        assertEquals(Arrays.asList(1, 2), config.getIntegerList("mixed"));
+        assertEquals(List.of("a", "3"), config.getList("mixed", String.class));
+    }
+
+    @Test
+    void getListReturnsCopy() {
+        Configuration config = new InMemoryConfiguration();
+        config.set("list", new ArrayList<>(List.of(1, 2)));
+        List<?> copy = config.getList("list");
+        copy.clear();
+        assertEquals(List.of(1, 2), config.getList("list"));
+    }
+
+    // --------------------
+    // Mutations
+    // --------------------
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    void setCreatesAndPromotesSections(SectionMapStrategies strategy) {
+        Configuration config = loaded(strategy, sample());
+
+        config.set("db.user", "admin");
+        config.set("a.b.c", 1);
+
+        assertEquals("admin", config.getString("db.user"));
+        assertEquals("localhost", config.getString("db.host"));
+        assertEquals(1, config.getInt("a.b.c"));
+        assertTrue(config.contains("a.b"));
+        assertEquals(Set.of("c"), config.getKeys("a.b"));
+    }
+
+    @Test
+    void setReplacesLeafWithSection() {
+        Configuration config = new InMemoryConfiguration();
+        config.set("a", "leaf");
+        config.set("a.b", 1);
+        assertEquals(1, config.getInt("a.b"));
+        assertTrue(config.get("a") instanceof Map);
+    }
+
+    @Test
+    void containsDistinguishesMissingPaths() {
+        Configuration config = new InMemoryConfiguration(sample());
+        assertTrue(config.load());
+        assertTrue(config.contains("db"));
+        assertTrue(config.contains("db.host"));
+        assertFalse(config.contains("db.nope"));
+        assertFalse(config.contains("name.sub"));
+        assertFalse(config.contains("nope.sub"));
+    }
+
+    @Test
+    void addDefaultOnlySetsAbsentKeys() {
+        Configuration config = new InMemoryConfiguration();
+        config.set("a", 1);
+        config.addDefault("a", 2);
+        config.addDefault("b", 3);
+        assertEquals(1, config.getInt("a"));
+        assertEquals(3, config.getInt("b"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    void removeReturnsOldValue(SectionMapStrategies strategy) {
+        Configuration config = loaded(strategy, sample());
+
+        assertEquals("localhost", config.remove("db.host"));
+        assertFalse(config.contains("db.host"));
+        assertTrue(config.contains("db.port"));
+        assertNull(config.remove("db.host"));
+        assertNull(config.remove("nope.deep"));
+    }
+
+    @Test
+    void clearEmptiesTree() {
+        Configuration config = loaded(SectionMapStrategies.COMPACT, sample());
+        config.clear();
+        assertTrue(config.keySet().isEmpty());
+        assertNull(config.get("db.host"));
+    }
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    void mergeOverwritesOrKeepsExistingValues(SectionMapStrategies strategy) {
+        Map<String, Object> other = new LinkedHashMap<>();
+        other.put("db", new LinkedHashMap<>(Map.of("host", "remote", "user", "admin")));
+        other.put("name", "other");
+        other.put("extra", List.of(1));
+
+        Configuration keep = loaded(strategy, sample());
+        keep.merge(other, false);
+        assertEquals("localhost", keep.getString("db.host"));
+        assertEquals("admin", keep.getString("db.user"));
+        assertEquals("app", keep.getString("name"));
+        assertEquals(List.of(1), keep.getList("extra"));
+
+        Configuration overwrite = loaded(strategy, sample());
+        overwrite.merge(other, true);
+        assertEquals("remote", overwrite.getString("db.host"));
+        assertEquals(5432, overwrite.getInt("db.port"));
+        assertEquals("other", overwrite.getString("name"));
+    }
+
+    // --------------------
+    // Sections / views
+    // --------------------
+
+    @Test
+    void getSectionReturnsCopyAndGetOrCreateSectionIsLive() {
+        Configuration config = new InMemoryConfiguration(sample());
+        assertTrue(config.load());
+
+        Map<String, Object> copy = config.getSection("db");
+        assertEquals("localhost", copy.get("host"));
+        assertThrows(UnsupportedOperationException.class, () -> copy.put("host", "x"));
+        assertTrue(config.getSection("name").isEmpty());
+
+        Map<String, Object> live = config.getOrCreateSection("db", false);
+        live.put("user", "admin");
+        assertEquals("admin", config.getString("db.user"));
+
+        assertNull(config.getOrCreateSection("new", false));
+        config.getOrCreateSection("new.section", true).put("k", "v");
+        assertEquals("v", config.getString("new.section.k"));
+    }
+
+    @Test
+    void toMapIsImmutableDeepCopy() {
+        Configuration config = new InMemoryConfiguration(sample());
+        assertTrue(config.load());
+        Map<String, Object> snapshot = config.toMap();
+
+        config.set("db.host", "changed");
+        assertEquals("localhost", ((Map<?, ?>) snapshot.get("db")).get("host"));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.put("x", 1));
+        assertThrows(UnsupportedOperationException.class, () -> ((List<?>) snapshot.get("ids")).clear());
+    }
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    @SuppressWarnings("unchecked")
+    void mapsInsideListsStayMutableAndSectionsDropNulls(SectionMapStrategies strategy) {
+        Map<String, Object> server = new LinkedHashMap<>();
+        server.put("host", "a");
+        server.put("port", 1);
+        server.put("alias", null);
+        Map<String, Object> section = new LinkedHashMap<>();
+        section.put("b", null);
+        section.put("c", 1);
+        Configuration config = loaded(strategy, Map.of("servers", List.of(server), "a", section));
+
+        Map<String, Object> loaded = (Map<String, Object>) config.getList("servers").get(0);
+        assertTrue(loaded.containsKey("alias"));
+        loaded.put("host", "b");
+        assertEquals("b", ((Map<?, ?>) config.getList("servers").get(0)).get("host"));
+
+        assertFalse(config.contains("a.b"));
+        assertTrue(config.contains("a.c"));
+    }
+
+    @Test
+    void orderedStrategyKeepsInsertionOrder() {
+        Configuration config = loaded(SectionMapStrategies.ORDERED, sample());
+        config.set("z", 1);
+        config.set("a", 2);
+        assertEquals(List.of("db", "name", "ids", "big", "z", "a"), new ArrayList<>(config.keySet()));
+        assertEquals(List.of("host", "port", "ratio", "enabled"), new ArrayList<>(config.getKeys("db")));
+    }
+
+    @Test
+    void orderedStrategyKeepsOrderOfLargeLoadedSections() {
+        Map<String, Object> big = new LinkedHashMap<>();
+        List<String> keys = new ArrayList<>();
+        for (int i = 20; i > 0; i--) {
+            big.put("k" + i, i);
+            keys.add("k" + i);
+        }
+        Configuration config = loaded(SectionMapStrategies.ORDERED, Map.of("big", big));
+        // loaded read-only, not as a per-entry node map
+        assertFalse(config.get("big") instanceof ConcurrentMap);
+        assertEquals(keys, new ArrayList<>(config.getKeys("big")));
+
+        config.set("big.k5", 0);
+        config.set("big.new", 1);
+        keys.add("new");
+        assertTrue(config.get("big") instanceof OrderedConcurrentMap);
+        assertEquals(keys, new ArrayList<>(config.getKeys("big")));
+    }
+
+    @Test
+    void changingStrategyKeepsTree() {
+        Configuration config = loaded(SectionMapStrategies.COMPACT, sample());
+        config.set("db.user", "admin");
+        for (SectionMapStrategies strategy : SectionMapStrategies.values()) {
+            config.setSectionMapStrategy(strategy);
+            assertSame(strategy, config.getSectionMapStrategy());
+            assertEquals("admin", config.getString("db.user"));
+            assertEquals(5432, config.getInt("db.port"));
+        }
+    }
+
+    // --------------------
+    // Concurrency
+    // --------------------
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    void concurrentSetsAreNotLost(SectionMapStrategies strategy) throws Exception {
+        Configuration config = loaded(strategy, sample());
+        int threads = 8;
+        int perThread = 500;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        // every thread writes into the same loaded (possibly read-only) section
+                        config.set("db.t" + id + "_" + i, i);
+                        config.set("shared.s" + id + "_" + i, i);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(4 + threads * perThread, config.getKeys("db").size());
+        assertEquals(threads * perThread, config.getKeys("shared").size());
+        assertEquals("localhost", config.getString("db.host"));
+    }
+}
@@ -0,0 +1,93 @@
+package me.biiee3l.bconfig.config;
+
+import me.biiee3l.bconfig.config.crypto.EncryptedValueCodec;
+import me.biiee3l.bconfig.config.crypto.KeyProvider;
+import me.biiee3l.bconfig.config.types.InMemoryConfiguration;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static me.biiee3l.bconfig.config.Budgets.assertAllocatesAtMost;
+import static me.biiee3l.bconfig.config.Budgets.assertTakesAtMost;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Allocation and latency budgets of the read and write hot paths. Allocation budgets leave about a third of headroom
+ * over what is measured today; latency budgets are an order of magnitude above it, so they only catch gross
+ * regressions.
+ */
+class HotPathBudgetTest {
+
+    private InMemoryConfiguration config;
+
+    @BeforeEach
+    void setUp() {
+        Map<String, Object> tree = new LinkedHashMap<>();
+        for (int s = 0; s < 20; s++) {
+            Map<String, Object> section = new LinkedHashMap<>();
+            for (int k = 0; k < 6; k++) {
+                section.put("key" + k, "value" + k);
+            }
+            section.put("port", 5432);
+            section.put("nested", Map.of("deep", Map.of("leaf", s)));
+            tree.put("section" + s, section);
+        }
+        tree.put("top", "value");
+        config = new InMemoryConfiguration(tree);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    void getStaysWithinBudget(SectionMapStrategies strategy) {
+        config.setSectionMapStrategy(strategy);
+        config.load();
+        assertEquals(7, config.getInt("section7.nested.deep.leaf"));
+
+        assertAllocatesAtMost(64, () -> config.get("top"), "get(top) " + strategy);
+        assertAllocatesAtMost(320, () -> config.getInt("section7.port"), "getInt(2 levels) " + strategy);
+        assertAllocatesAtMost(448, () -> config.get("section7.nested.deep.leaf"), "get(4 levels) " + strategy);
+        assertAllocatesAtMost(256, () -> config.contains("section7.missing"), "contains " + strategy);
+
+        assertTakesAtMost(2_000, () -> config.getInt("section7.port"), "getInt(2 levels) " + strategy);
+        assertTakesAtMost(3_000, () -> config.get("section7.nested.deep.leaf"), "get(4 levels) " + strategy);
+    }
+
+    @ParameterizedTest
+    @EnumSource(SectionMapStrategies.class)
+    void overwriteStaysWithinBudget(SectionMapStrategies strategy) {
+        config.setSectionMapStrategy(strategy);
+        config.load();
+        // the first write promotes the section, later ones overwrite in place
+        config.set("section3.port", 1);
+
+        assertAllocatesAtMost(448, () -> config.set("section3.port", 2), "set(2 levels) " + strategy);
+        assertTakesAtMost(5_000, () -> config.set("section3.port", 3), "set(2 levels) " + strategy);
+    }
+
+    @Test
+    void memoizedReferenceStaysWithinBudget() {
+        config.load();
+        config.set("url", "jdbc://${section1.key1}:${section1.port}/db");
+        config.setReferenceResolution(true);
+        assertEquals("jdbc://value1:5432/db", config.getString("url"));
+
+        assertAllocatesAtMost(128, () -> config.getString("url"), "getString(memoized reference)");
+        assertTakesAtMost(2_000, () -> config.getString("url"), "getString(memoized reference)");
+    }
+
+    @Test
+    void cachedDecryptionStaysWithinBudget() {
+        config.load();
+        config.setValueCodec("secret", new EncryptedValueCodec(KeyProvider.of("k", new byte[16])));
+        config.set("secret", "password");
+        assertEquals("password", config.getString("secret"));
+
+        // served from the plaintext cache: no cipher work, no copies of the ciphertext
+        assertAllocatesAtMost(128, () -> config.getString("secret"), "getString(encrypted)");
+        assertTakesAtMost(2_000, () -> config.getString("secret"), "getString(encrypted)");
+    }
+}
@@ -0,0 +1,119 @@
+package me.biiee3l.bconfig.config;
+
+import me.biiee3l.bconfig.config.types.InMemoryConfiguration;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReferenceResolutionTest {
+
+    private static Configuration resolving() {
+        Configuration config = new InMemoryConfiguration();
+        config.setReferenceResolution(true);
+        return config;
+    }
+
+    @Test
+    void disabledByDefault() {
+        Configuration config = new InMemoryConfiguration();
+        config.set("a", "x");
+        config.set("b", "${a}");
+        assertFalse(config.isReferenceResolution());
+        assertEquals("${a}", config.getString("b"));
+    }
+
+    @Test
+    void resolvesPathsRecursivelyAndKeepsUnknownReferences() {
+        Configuration config = resolving();
+        config.set("host", "localhost");
+        config.set("port", 8080);
+        config.set("url", "http://${host}:${port}/");
+        config.set("health", "${url}health");
+        config.set("unknown", "${nope} and ${env:BCONFIG_TEST_SURELY_UNSET}");
+        config.set("escaped", "$${host}");
+
+        assertEquals("http://localhost:8080/", config.getString("url"));
+        assertEquals("http://localhost:8080/health", config.getString("health"));
+        assertEquals("${nope} and ${env:BCONFIG_TEST_SURELY_UNSET}", config.getString("unknown"));
+        assertEquals("${host}", config.getString("escaped"));
+    }
+
+    @Test
+    void resolvesSystemProperties() {
+        System.setProperty("bconfig.test.prop", "fromSys");
+        try {
+            Configuration config = resolving();
+            config.set("v", "${sys:bconfig.test.prop}");
+            assertEquals("fromSys", config.getString("v"));
+        } finally {
+            System.clearProperty("bconfig.test.prop");
+        }
+    }
+
+    @Test
+    void writesInvalidateTransitiveDependents() {
+        Configuration config = resolving();
+        config.set("db.host", "a");
+        config.set("url", "jdbc://${db.host}");
+        config.set("label", "[${url}]");
+        assertEquals("[jdbc://a]", config.getString("label"));
+
+        config.set("db.host", "b");
+        assertEquals("[jdbc://b]", config.getString("label"));
+
+        // replacing the whole section invalidates references below it
+        config.set("db", new LinkedHashMap<>(Map.of("host", "c")));
+        assertEquals("[jdbc://c]", config.getString("label"));
+
+        config.remove("db.host");
+        assertEquals("[jdbc://${db.host}]", config.getString("label"));
+
+        config.merge(Map.of("db", Map.of("host", "d")), true);
+        assertEquals("[jdbc://d]", config.getString("label"));
+    }
+
+    @Test
+    void cyclesFailOnEnableAndOnLoad() {
+        Configuration config = new InMemoryConfiguration();
+        config.set("a", "${b}");
+        config.set("b", "${a}");
+        assertThrows(ConfigurationReferenceException.class, () -> config.setReferenceResolution(true));
+
+        Map<String, Object> cyclic = new LinkedHashMap<>();
+        cyclic.put("a", "${b}");
+        cyclic.put("b", "${a}");
+        InMemoryConfiguration loaded = new InMemoryConfiguration(cyclic);
+        loaded.setReferenceResolution(true);
+        assertFalse(loaded.load());
+    }
+
+    @Test
+    void failedLoadKeepsPreviousTreeAndResolver() {
+        InMemoryConfiguration config = new InMemoryConfiguration(Map.of("x", "ok", "y", "${x}"));
+        config.setReferenceResolution(true);
+        assertTrue(config.load());
+        // store a cyclic snapshot, then go back to the loaded tree
+        config.set("a", "${b}");
+        config.set("b", "${a}");
+        config.save();
+        config.remove("a");
+        config.remove("b");
+        assertEquals("ok", config.getString("y"));
+
+        assertFalse(config.load());
+        assertEquals(Set.of("x", "y"), config.keySet());
+        assertEquals("ok", config.getString("y"));
+    }
+
+    @Test
+    void cycleCreatedBySetFailsOnRead() {
+        Configuration config = resolving();
+        config.set("a", "${b}");
+        config.set("b", "${a}");
+        assertThrows(ConfigurationReferenceException.class, () -> config.getString("a"));
+    }
+}
@@ -0,0 +1,106 @@
+package me.biiee3l.bconfig.config.crypto;
+
+import me.biiee3l.bconfig.config.Configuration;
+import me.biiee3l.bconfig.config.ValueCodecException;
+import me.biiee3l.bconfig.config.types.InMemoryConfiguration;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EncryptedValueCodecTest {
+
+    private static final byte[] KEY = new byte[32];
+
+    static {
+        Arrays.fill(KEY, (byte) 7);
+    }
+
+    @Test
+    void storesCiphertextAndReadsPlaintext() {
+        InMemoryConfiguration config = new InMemoryConfiguration();
+        config.setValueCodec("db.password", new EncryptedValueCodec(KeyProvider.of("k1", KEY)));
+        config.set("db.password", "s3cret");
+        config.set("db.port", 1);
+
+        assertEquals("s3cret", config.getString("db.password"));
+        config.save();
+        Object stored = ((Map<?, ?>) config.getStored().get("db")).get("password");
+        assertTrue(stored.toString().startsWith("ENC(k1:"), String.valueOf(stored));
+        assertEquals(1, ((Map<?, ?>) config.getStored().get("db")).get("port"));
+    }
+
+    @Test
+    void plainValuesAreEncryptedOnLoadAndTypedGettersParse() {
+        InMemoryConfiguration config = new InMemoryConfiguration(Map.of("secret", Map.of("pin", 1234)));
+        config.setValueCodec("secret.pin", new EncryptedValueCodec(KeyProvider.of("k1", KEY)));
+        assertTrue(config.load());
+
+        assertEquals(1234, config.getInt("secret.pin"));
+        assertTrue(config.toMap().toString().contains("ENC(k1:"));
+    }
+
+    @Test
+    void ciphertextIsBoundToItsPath() {
+        EncryptedValueCodec codec = new EncryptedValueCodec(KeyProvider.of("k1", KEY), 0);
+        Object stored = codec.encode("a", "value");
+        assertEquals("value", codec.decode("a", stored));
+        assertThrows(ValueCodecException.class, () -> codec.decode("b", stored));
+    }
+
+    @Test
+    void unknownKeyFails() {
+        Object stored = new EncryptedValueCodec(KeyProvider.of("k1", KEY)).encode("a", "v");
+        EncryptedValueCodec other = new EncryptedValueCodec(KeyProvider.of("k2", KEY), 0);
+        assertThrows(ValueCodecException.class, () -> other.decode("a", stored));
+    }
+
+    @Test
+    void fileKeyProviderCreatesAndReusesKey(@TempDir File dir) throws Exception {
+        File keyFile = new File(dir, "config.key");
+        Object stored = new EncryptedValueCodec(new FileKeyProvider(keyFile)).encode("a", "v");
+        assertTrue(keyFile.exists());
+        if (Files.getFileStore(dir.toPath()).supportsFileAttributeView(PosixFileAttributeView.class)) {
+            assertEquals(PosixFilePermissions.fromString("rw-------"), Files.getPosixFilePermissions(keyFile.toPath()));
+        }
+
+        Configuration config = new InMemoryConfiguration(Map.of("a", stored));
+        config.setValueCodec("a", new EncryptedValueCodec(new FileKeyProvider(keyFile)));
+        assertTrue(config.load());
+        assertEquals("v", config.getString("a"));
+    }
+
+    @Test
+    void concurrentlyCreatedKeyFilesAgree(@TempDir File dir) throws Exception {
+        File keyFile = new File(dir, "config.key");
+        List<Callable<byte[]>> tasks = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            tasks.add(() -> new FileKeyProvider(keyFile).key("config.key").getEncoded());
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(tasks.size());
+        try {
+            byte[] first = null;
+            for (Future<byte[]> key : pool.invokeAll(tasks)) {
+                if (first == null) first = key.get();
+                assertArrayEquals(first, key.get());
+            }
+        } finally {
+            pool.shutdown();
+        }
+        // no temporary files are left behind
+        assertArrayEquals(new String[]{"config.key"}, dir.list());
+    }
+}
@@ -0,0 +1,148 @@
+package me.biiee3l.bconfig.config.stream;
+
+import me.biiee3l.bconfig.config.Configuration;
+import me.biiee3l.bconfig.config.types.InMemoryConfiguration;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingConversionTest {
+
+    private static Map<String, Object> sample() {
+        Map<String, Object> db = new LinkedHashMap<>();
+        db.put("host", "localhost");
+        db.put("port", 5432);
+        db.put("ratio", 0.5);
+        db.put("enabled", true);
+        db.put("quoted", "123");
+        db.put("text", "two\nlines = #!:");
+        db.put("empty", new LinkedHashMap<>());
+        Map<String, Object> tree = new LinkedHashMap<>();
+        tree.put("db", db);
+        tree.put("list", Arrays.asList(1, "two", Map.of("x", 1), List.of(3, 4)));
+        tree.put("big", 12345678901L);
+        return tree;
+    }
+
+    private static Configuration loaded() {
+        Configuration config = new InMemoryConfiguration(sample());
+        assertTrue(config.load());
+        return config;
+    }
+
+    private static Map<String, Object> imported(ConfigurationReader reader) throws IOException {
+        Configuration target = new InMemoryConfiguration();
+        target.merge(reader, true);
+        return target.toMap();
+    }
+
+    @Test
+    void yamlRoundTripKeepsTypes() throws Exception {
+        Configuration config = loaded();
+        StringWriter yaml = new StringWriter();
+        config.write(new YamlConfigurationWriter(yaml));
+
+        assertTrue(yaml.toString().contains("quoted: '123'"), yaml.toString());
+        assertEquals(config.toMap(), imported(new YamlConfigurationReader(new StringReader(yaml.toString()))));
+    }
+
+    @Test
+    void jsonRoundTripKeepsTypes() throws Exception {
+        Configuration config = loaded();
+        StringWriter json = new StringWriter();
+        config.write(new JsonConfigurationWriter(json));
+
+        assertEquals(config.toMap(), imported(new JsonConfigurationReader(new StringReader(json.toString()))));
+    }
+
+    @Test
+    void documentRoundTrip() throws Exception {
+        Configuration config = loaded();
+        MapConfigurationWriter writer = new MapConfigurationWriter(Document::new);
+        config.write(writer);
+
+        Document document = (Document) writer.getSection();
+        assertTrue(document.get("db") instanceof Document);
+        assertEquals(config.toMap(), imported(ConfigurationReader.of(document)));
+    }
+
+    @Test
+    void propertiesRoundTripKeepsStructureAsStrings() throws Exception {
+        Configuration config = loaded();
+        StringWriter properties = new StringWriter();
+        config.write(new PropertiesConfigurationWriter(properties));
+        assertTrue(properties.toString().contains("list[3][1]=4"), properties.toString());
+
+        Configuration target = new InMemoryConfiguration();
+        target.merge(new PropertiesConfigurationReader(new StringReader(properties.toString())), true);
+        assertEquals("5432", target.getString("db.port"));
+        assertEquals(5432, target.getInt("db.port"));
+        assertEquals("two\nlines = #!:", target.getString("db.text"));
+        assertEquals(List.of("1", "two", Map.of("x", "1"), List.of("3", "4")), target.getList("list"));
+        // empty sections have no properties representation
+        assertFalse(target.contains("db.empty"));
+    }
+
+    @Test
+    void propertiesListIndexesAreSparse() throws Exception {
+        Configuration target = new InMemoryConfiguration();
+        target.merge(new PropertiesConfigurationReader(new StringReader("a[2]=z\na[0]=x\n")), true);
+        // short gaps are null items the writer left out
+        assertEquals(Arrays.asList("x", null, "z"), target.getList("a"));
+
+        // long ones can't be told from a typo and are rejected
+        IOException e = assertThrows(IOException.class, () -> new InMemoryConfiguration().merge(
+                new PropertiesConfigurationReader(new StringReader("b[999999999]=far\nb[0]=near\n")), true));
+        assertTrue(e.getMessage().contains("b[999999999]"), e.getMessage());
+    }
+
+    @Test
+    void directConversionBetweenFormats() throws Exception {
+        StringWriter json = new StringWriter();
+        new YamlConfigurationReader(new StringReader("a:\n  b: [1, x]\n  c: null\nd: 1.5\n"))
+                .read(new JsonConfigurationWriter(json));
+        assertEquals("{\"a\":{\"b\":[1,\"x\"],\"c\":null},\"d\":1.5}", json.toString());
+
+        StringWriter empty = new StringWriter();
+        new YamlConfigurationReader(new StringReader("")).read(new JsonConfigurationWriter(empty));
+        assertEquals("{}", empty.toString());
+    }
+
+    @Test
+    void streamedMergeFollowsMapMergeRules() throws Exception {
+        for (boolean overwrite : new boolean[]{false, true}) {
+            Configuration streamed = new InMemoryConfiguration();
+            Configuration mapped = new InMemoryConfiguration();
+            for (Configuration c : List.of(streamed, mapped)) {
+                c.set("db.host", "existing");
+                c.set("list", "leaf");
+                c.set("other", 1);
+            }
+            streamed.merge(ConfigurationReader.of(sample()), overwrite);
+            mapped.merge(sample(), overwrite);
+            assertEquals(mapped.getString("db.host"), streamed.getString("db.host"));
+            assertEquals(mapped.get("list"), streamed.get("list"));
+            assertEquals(mapped.getInt("db.port"), streamed.getInt("db.port"));
+            assertEquals(1, streamed.getInt("other"));
+        }
+    }
+
+    @Test
+    void rejectsNonMappingRoots() {
+        assertThrows(IOException.class, () -> new YamlConfigurationReader(new StringReader("- 1\n"))
+                .read(new MapConfigurationWriter()));
+        assertThrows(IOException.class, () -> new JsonConfigurationReader(new StringReader("[1]"))
+                .read(new MapConfigurationWriter()));
+        assertThrows(IOException.class, () -> new YamlConfigurationReader(new StringReader("a: &x 1\nb: *x\n"))
+                .read(new MapConfigurationWriter()));
+    }
+}
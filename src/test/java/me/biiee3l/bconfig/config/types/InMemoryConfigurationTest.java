@@ -0,0 +1,75 @@
+package me.biiee3l.bconfig.config.types;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryConfigurationTest {
+
+    @Test
+    void saveStoresSnapshotAndLoadRestoresIt() {
+        InMemoryConfiguration config = new InMemoryConfiguration(Map.of("a", 1));
+        assertTrue(config.load());
+        config.set("b.c", "x");
+        assertNull(config.getStored().get("b"));
+
+        config.save();
+        config.set("b.c", "changed");
+        assertEquals("x", ((Map<?, ?>) config.getStored().get("b")).get("c"));
+
+        assertTrue(config.load());
+        assertEquals("x", config.getString("b.c"));
+        assertEquals(2, config.getLoadCount());
+        assertEquals(1, config.getSaveCount());
+    }
+
+    @Test
+    void injectedFailuresAreCountedDown() {
+        InMemoryConfiguration config = new InMemoryConfiguration(Map.of("a", 1));
+        config.failNextLoads(2);
+        assertFalse(config.load());
+        assertFalse(config.load());
+        assertTrue(config.load());
+        assertEquals(1, config.getInt("a"));
+
+        config.set("a", 2);
+        config.failNextSaves(1);
+        config.save();
+        assertEquals(1, config.getStored().get("a"));
+        config.save();
+        assertEquals(2, config.getStored().get("a"));
+        assertEquals(3, config.getLoadCount());
+        assertEquals(2, config.getSaveCount());
+    }
+
+    @Test
+    void failedLoadKeepsCurrentTree() {
+        InMemoryConfiguration config = new InMemoryConfiguration(Map.of("a", 1));
+        assertTrue(config.load());
+        config.set("b", 2);
+        config.failNextLoads(1);
+        assertFalse(config.load());
+        assertEquals(2, config.getInt("b"));
+    }
+
+    @Test
+    void injectedLatencyDelaysLoadAndSave() {
+        InMemoryConfiguration config = new InMemoryConfiguration();
+        config.setLatency(20, TimeUnit.MILLISECONDS);
+
+        long start = System.nanoTime();
+        assertTrue(config.load());
+        config.save();
+        long elapsed = System.nanoTime() - start;
+        assertTrue(elapsed >= TimeUnit.MILLISECONDS.toNanos(40), "elapsed " + elapsed);
+
+        config.setLatency(0, TimeUnit.MILLISECONDS);
+        start = System.nanoTime();
+        config.save();
+        assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(20));
+        assertThrows(IllegalArgumentException.class, () -> config.setLatency(-1, TimeUnit.SECONDS));
+    }
+}
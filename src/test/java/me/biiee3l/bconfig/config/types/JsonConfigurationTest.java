@@ -0,0 +1,74 @@
+package me.biiee3l.bconfig.config.types;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonConfigurationTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void loadAssignsParsedTree() throws Exception {
+        File file = new File(dir, "config.json");
+        Files.write(file.toPath(), "{\"db\":{\"host\":\"h\",\"port\":5},\"tags\":[\"a\"]}".getBytes(StandardCharsets.UTF_8));
+
+        JsonConfiguration config = new JsonConfiguration(file);
+        assertTrue(config.load());
+        assertEquals("h", config.getString("db.host"));
+        // Gson reads every number as a Double; the typed getters convert
+        assertEquals(5, config.getInt("db.port"));
+        assertEquals(List.of("a"), config.getStringList("tags"));
+    }
+
+    @Test
+    void saveAndReloadRoundTrips() {
+        File file = new File(dir, "nested/config.json");
+        JsonConfiguration config = new JsonConfiguration(file);
+        assertTrue(config.load());
+        config.set("a.b", "v");
+        config.set("n", 3);
+        config.set("list", List.of(1, 2));
+        config.save();
+
+        JsonConfiguration reloaded = new JsonConfiguration(file);
+        assertTrue(reloaded.load());
+        assertEquals("v", reloaded.getString("a.b"));
+        assertEquals(3, reloaded.getInt("n"));
+        assertEquals(List.of(1, 2), reloaded.getIntegerList("list"));
+        assertFalse(new File(dir, "nested/config.json.tmp").exists());
+    }
+
+    @Test
+    void invalidJsonFailsLoad() throws Exception {
+        File file = new File(dir, "broken.json");
+        Files.write(file.toPath(), "{\"a\": ".getBytes(StandardCharsets.UTF_8));
+        assertFalse(new JsonConfiguration(file).load());
+    }
+
+    @Test
+    void journalReplaysOverSnapshot() throws Exception {
+        File file = new File(dir, "config.json");
+        JsonConfiguration config = new JsonConfiguration(file);
+        config.enableJournal(Long.MAX_VALUE);
+        assertTrue(config.load());
+        config.set("a", 1);
+        config.set("b.c", "x");
+        config.clear();
+        config.set("d", true);
+
+        JsonConfiguration restarted = new JsonConfiguration(file);
+        restarted.enableJournal(Long.MAX_VALUE);
+        assertTrue(restarted.load());
+        assertFalse(restarted.contains("a"));
+        assertFalse(restarted.contains("b"));
+        assertTrue(restarted.getBoolean("d"));
+    }
+}
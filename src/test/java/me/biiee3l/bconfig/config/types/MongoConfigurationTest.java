@@ -0,0 +1,115 @@
+package me.biiee3l.bconfig.config.types;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.ReplaceOptions;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MongoConfigurationTest {
+
+    /**
+     * Collection kept in a list, implementing only what MongoConfiguration uses. Filters are matched field by field.
+     */
+    private static final class FakeCollection {
+        final List<Document> documents = new ArrayList<>();
+
+        @SuppressWarnings("unchecked")
+        MongoCollection<Document> proxy() {
+            return (MongoCollection<Document>) Proxy.newProxyInstance(getClass().getClassLoader(),
+                    new Class<?>[]{MongoCollection.class}, (p, method, args) -> {
+                        switch (method.getName()) {
+                            case "find":
+                                return findIterable(matching((Document) args[0]));
+                            case "replaceOne":
+                                replaceOne((Document) args[0], (Document) args[1], (ReplaceOptions) args[2]);
+                                return null;
+                            default:
+                                throw new UnsupportedOperationException(method.getName());
+                        }
+                    });
+        }
+
+        private List<Document> matching(Document filter) {
+            List<Document> result = new ArrayList<>();
+            for (Document d : documents) {
+                boolean match = true;
+                for (Map.Entry<String, Object> e : filter.entrySet()) {
+                    match &= e.getValue().equals(d.get(e.getKey()));
+                }
+                if (match) result.add(d);
+            }
+            return result;
+        }
+
+        private void replaceOne(Document filter, Document replacement, ReplaceOptions options) {
+            List<Document> matches = matching(filter);
+            if (!matches.isEmpty()) {
+                documents.set(documents.indexOf(matches.get(0)), replacement);
+            } else if (options.isUpsert()) {
+                documents.add(replacement);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private static FindIterable<Document> findIterable(List<Document> result) {
+            return (FindIterable<Document>) Proxy.newProxyInstance(FakeCollection.class.getClassLoader(),
+                    new Class<?>[]{FindIterable.class}, (p, method, args) -> {
+                        if (method.getName().equals("first")) return result.isEmpty() ? null : result.get(0);
+                        throw new UnsupportedOperationException(method.getName());
+                    });
+        }
+    }
+
+    @Test
+    void loadStartsFromQueryWhenDocumentIsMissing() {
+        FakeCollection collection = new FakeCollection();
+        MongoConfiguration config = new MongoConfiguration(new Document("_name", "app"), collection.proxy());
+        assertTrue(config.load());
+        assertEquals("app", config.getString("_name"));
+    }
+
+    @Test
+    void saveUpsertsDocumentMatchingQuery() {
+        FakeCollection collection = new FakeCollection();
+        collection.documents.add(new Document("_name", "other").append("v", 1));
+        MongoConfiguration config = new MongoConfiguration(new Document("_name", "app"), collection.proxy());
+        assertTrue(config.load());
+        config.set("db.host", "h");
+        config.save();
+        config.set("db.host", "h2");
+        config.save();
+
+        assertEquals(2, collection.documents.size());
+        Document saved = collection.documents.get(1);
+        assertEquals("app", saved.get("_name"));
+        assertEquals("h2", ((Document) saved.get("db")).get("host"));
+        // documents of other configurations are left alone
+        assertEquals(1, collection.documents.get(0).get("v"));
+
+        MongoConfiguration reloaded = new MongoConfiguration(new Document("_name", "app"), collection.proxy());
+        assertTrue(reloaded.load());
+        assertEquals("h2", reloaded.getString("db.host"));
+    }
+
+    @Test
+    void nestedDocumentsLoadAsSections() {
+        FakeCollection collection = new FakeCollection();
+        collection.documents.add(new Document("_name", "app")
+                .append("db", new Document("port", 27017))
+                .append("list", List.of(new Document("x", 1))));
+        MongoConfiguration config = new MongoConfiguration(new Document("_name", "app"), collection.proxy());
+        assertTrue(config.load());
+        assertEquals(27017, config.getInt("db.port"));
+        config.set("db.user", "u");
+        assertEquals(27017, config.getInt("db.port"));
+        assertEquals(1, ((Map<?, ?>) config.getList("list").get(0)).get("x"));
+    }
+}
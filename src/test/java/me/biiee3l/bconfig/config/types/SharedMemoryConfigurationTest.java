@@ -0,0 +1,200 @@
+package me.biiee3l.bconfig.config.types;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SharedMemoryConfigurationTest {
+
+    @TempDir
+    File dir;
+
+    @Test
+    void publishedTreeIsVisibleToOtherInstances() throws Exception {
+        File file = new File(dir, "shared.bin");
+        try (SharedMemoryConfiguration writer = new SharedMemoryConfiguration(file);
+             SharedMemoryConfiguration reader = new SharedMemoryConfiguration(file)) {
+            assertTrue(writer.load());
+            assertTrue(reader.load());
+            long version = reader.getVersion();
+
+            Map<String, Object> tree = new LinkedHashMap<>();
+            tree.put("db", Map.of("host", "h", "port", 5, "ratio", 0.5, "on", true));
+            tree.put("list", List.of(1, "two", Map.of("x", 1L)));
+            writer.publish(tree);
+
+            assertNotEquals(version, reader.getVersion());
+            assertEquals("h", reader.getString("db.host"));
+            assertEquals(5, reader.getInt("db.port"));
+            assertEquals(0.5, reader.getDouble("db.ratio"));
+            assertTrue(reader.getBoolean("db.on"));
+            assertEquals(List.of(1, "two", Map.of("x", 1L)), reader.getList("list"));
+            assertTrue(reader.contains("db.port"));
+            assertFalse(reader.contains("db.nope"));
+            assertEquals(Set.of("host", "port", "ratio", "on"), reader.getKeys("db"));
+            assertEquals(Set.of("db", "list"), reader.keySet());
+        }
+    }
+
+    @Test
+    void localChangesArePublishedOnSave() throws Exception {
+        File file = new File(dir, "shared.bin");
+        try (SharedMemoryConfiguration a = new SharedMemoryConfiguration(file);
+             SharedMemoryConfiguration b = new SharedMemoryConfiguration(file)) {
+            assertTrue(a.load());
+            assertTrue(b.load());
+            a.set("k", "v1");
+            assertEquals("v1", a.getString("k"));
+            assertNull(b.getString("k"));
+
+            a.save();
+            assertEquals("v1", b.getString("k"));
+            b.set("k2", 2);
+            b.save();
+            assertEquals(2, a.getInt("k2"));
+            assertEquals("v1", a.getString("k"));
+        }
+    }
+
+    @Test
+    void readersNeverSeeTornTrees() throws Exception {
+        File file = new File(dir, "shared.bin");
+        try (SharedMemoryConfiguration writer = new SharedMemoryConfiguration(file);
+             SharedMemoryConfiguration reader = new SharedMemoryConfiguration(file)) {
+            assertTrue(writer.load());
+            assertTrue(reader.load());
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            Thread publisher = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 500; i++) {
+                        Map<String, Object> tree = new HashMap<>();
+                        tree.put("a", i);
+                        tree.put("b", i);
+                        // growing payload forces the file to be grown and remapped
+                        tree.put("pad", "x".repeat(i * 10));
+                        writer.publish(tree);
+                    }
+                } catch (Throwable t) {
+                    failure.set(t);
+                }
+            });
+            publisher.start();
+            while (publisher.isAlive()) {
+                Map<String, Object> snapshot = reader.toMap();
+                assertEquals(snapshot.get("a"), snapshot.get("b"));
+            }
+            publisher.join();
+            assertNull(failure.get());
+            assertEquals(499, reader.getInt("a"));
+        }
+    }
+
+    @Test
+    void changesRacingWithSaveAreNotLost() throws Exception {
+        File file = new File(dir, "shared.bin");
+        try (SharedMemoryConfiguration writer = new SharedMemoryConfiguration(file);
+             SharedMemoryConfiguration reader = new SharedMemoryConfiguration(file)) {
+            assertTrue(writer.load());
+            assertTrue(reader.load());
+            int threads = 4;
+            int perThread = 2000;
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            List<Thread> setters = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int id = t;
+                setters.add(new Thread(() -> {
+                    try {
+                        for (int i = 0; i < perThread; i++) {
+                            writer.set("k" + id + "_" + i, i);
+                        }
+                    } catch (Throwable e) {
+                        failure.set(e);
+                    }
+                }));
+            }
+            setters.forEach(Thread::start);
+            while (setters.stream().anyMatch(Thread::isAlive)) {
+                writer.save();
+            }
+            for (Thread setter : setters) {
+                setter.join();
+            }
+            writer.save();
+            assertNull(failure.get());
+            assertEquals(threads * perThread, reader.keySet().size());
+        }
+    }
+
+    @Test
+    void rejectsForeignFiles() throws Exception {
+        File file = new File(dir, "foreign.bin");
+        Files.write(file.toPath(), new byte[64]);
+        try (SharedMemoryConfiguration config = new SharedMemoryConfiguration(file)) {
+            assertFalse(config.load());
+        }
+    }
+
+    @Test
+    void resolvedReferencesAreMemoizedPerSharedVersion() throws Exception {
+        File file = new File(dir, "shared.bin");
+        System.setProperty("bconfig.test.shared", "one");
+        try (SharedMemoryConfiguration writer = new SharedMemoryConfiguration(file);
+             SharedMemoryConfiguration reader = new SharedMemoryConfiguration(file)) {
+            assertTrue(writer.load());
+            assertTrue(reader.load());
+            reader.setReferenceResolution(true);
+            writer.publish(Map.of("v", "${sys:bconfig.test.shared}"));
+            assertEquals("one", reader.getString("v"));
+
+            // every read decodes a new String, the memoized value must still be used
+            System.setProperty("bconfig.test.shared", "two");
+            assertEquals("one", reader.getString("v"));
+
+            // an unrelated publish may have changed what references point at
+            writer.publish(Map.of("v", "${sys:bconfig.test.shared}", "other", 1));
+            assertEquals("two", reader.getString("v"));
+        } finally {
+            System.clearProperty("bconfig.test.shared");
+        }
+    }
+
+    @Test
+    void publisherDyingMidPublishIsReported() throws Exception {
+        File file = new File(dir, "shared.bin");
+        try (SharedMemoryConfiguration writer = new SharedMemoryConfiguration(file);
+             SharedMemoryConfiguration reader = new SharedMemoryConfiguration(file)) {
+            assertTrue(writer.load());
+            assertTrue(reader.load());
+            writer.publish(Map.of("k", "v"));
+            // what a publisher killed between making the sequence odd and even again leaves behind
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.seek(8);
+                long seq = raw.readLong();
+                raw.seek(8);
+                raw.writeLong(seq + 1);
+            }
+
+            long start = System.nanoTime();
+            assertThrows(IllegalStateException.class, () -> reader.getString("k"));
+            assertTrue(System.nanoTime() - start < 5_000_000_000L);
+            try (SharedMemoryConfiguration late = new SharedMemoryConfiguration(file)) {
+                assertFalse(late.load());
+            }
+
+            writer.publish(Map.of("k", "again"));
+            assertEquals("again", reader.getString("k"));
+        }
+    }
+}
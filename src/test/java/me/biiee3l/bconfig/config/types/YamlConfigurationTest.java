@@ -0,0 +1,246 @@
+package me.biiee3l.bconfig.config.types;
+
+import me.biiee3l.bconfig.config.crypto.EncryptedValueCodec;
+import me.biiee3l.bconfig.config.crypto.KeyProvider;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class YamlConfigurationTest {
+
+    @TempDir
+    File dir;
+
+    private File write(String name, String content) throws Exception {
+        File file = new File(dir, name);
+        Files.write(file.toPath(), content.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private static String read(File file) throws Exception {
+        return new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void loadsTypedValues() throws Exception {
+        File file = write("config.yml", "db:\n  host: localhost\n  port: 5432\n  ratio: 0.5\nlist:\n- a\n- b\nbig: 12345678901\n");
+        YamlConfiguration config = new YamlConfiguration(file);
+        assertTrue(config.load());
+
+        assertEquals("localhost", config.getString("db.host"));
+        assertEquals(5432, config.getInt("db.port"));
+        assertEquals(0.5, config.getDouble("db.ratio"));
+        assertEquals(List.of("a", "b"), config.getStringList("list"));
+        assertEquals(12345678901L, config.getLong("big"));
+    }
+
+    @Test
+    void missingFileLoadsEmpty() {
+        YamlConfiguration config = new YamlConfiguration(new File(dir, "sub/missing.yml"));
+        assertTrue(config.load());
+        assertTrue(config.keySet().isEmpty());
+        assertTrue(config.getFile().exists());
+    }
+
+    @Test
+    void saveKeepsKeyOrderAndComments() throws Exception {
+        File file = write("config.yml", "# header\nzeta: 1\n# about alpha\nalpha:\n  b: 2 # inline\n  a: 1\n");
+        YamlConfiguration config = new YamlConfiguration(file);
+        assertTrue(config.load());
+        config.set("alpha.c", 3);
+        config.save();
+
+        String saved = read(file);
+        assertTrue(saved.contains("# header"), saved);
+        assertTrue(saved.contains("# about alpha"), saved);
+        assertTrue(saved.contains("# inline"), saved);
+        assertTrue(saved.indexOf("zeta") < saved.indexOf("alpha"), saved);
+
+        YamlConfiguration reloaded = new YamlConfiguration(file);
+        assertTrue(reloaded.load());
+        assertEquals(List.of("zeta", "alpha"), new ArrayList<>(reloaded.keySet()));
+        assertEquals(List.of("b", "a", "c"), new ArrayList<>(reloaded.getKeys("alpha")));
+    }
+
+    @Test
+    void invalidYamlFailsLoad() throws Exception {
+        File file = write("broken.yml", "a: [1, 2\n");
+        assertFalse(new YamlConfiguration(file).load());
+    }
+
+    @Test
+    void journalSurvivesRestartAndCompacts() throws Exception {
+        File file = write("config.yml", "a: 1\n");
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.enableJournal(Long.MAX_VALUE);
+        assertTrue(config.load());
+        config.set("b.c", "x");
+        config.remove("a");
+        config.save();
+        // below the threshold save() only relies on the journal
+        assertEquals("a: 1\n", read(file));
+
+        YamlConfiguration restarted = new YamlConfiguration(file);
+        restarted.enableJournal(Long.MAX_VALUE);
+        assertTrue(restarted.load());
+        assertEquals("x", restarted.getString("b.c"));
+        assertFalse(restarted.contains("a"));
+
+        restarted.compact();
+        assertFalse(read(file).contains("a: 1"));
+        assertTrue(read(file).contains("c: x"));
+        restarted.disableJournal();
+        assertFalse(new File(file.getPath() + ".journal").exists());
+    }
+
+    @Test
+    void journalRecordsOnlyWhatMergeWrote() throws Exception {
+        StringBuilder yaml = new StringBuilder("server:\n");
+        for (int i = 0; i < 100; i++) {
+            yaml.append("  key").append(i).append(": value").append(i).append('\n');
+        }
+        File file = write("config.yml", yaml.toString());
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.enableJournal(Long.MAX_VALUE);
+        assertTrue(config.load());
+        config.merge(Map.of("server", Map.of("port", 1), "extra", Map.of("a", 2)), true);
+
+        List<String> records = Files.readAllLines(new File(file.getPath() + ".journal").toPath());
+        assertEquals(2, records.size(), records.toString());
+        assertTrue(records.stream().anyMatch(r -> r.contains("\"server.port\"")), records.toString());
+        assertTrue(records.stream().noneMatch(r -> r.contains("key0")), records.toString());
+
+        YamlConfiguration restarted = new YamlConfiguration(file);
+        restarted.enableJournal(Long.MAX_VALUE);
+        assertTrue(restarted.load());
+        assertEquals(1, restarted.getInt("server.port"));
+        assertEquals(2, restarted.getInt("extra.a"));
+        assertEquals("value99", restarted.getString("server.key99"));
+    }
+
+    @Test
+    void codecChangesAreJournaled() throws Exception {
+        File file = write("config.yml", "secret: hunter2\n");
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.enableJournal(Long.MAX_VALUE, true);
+        assertTrue(config.load());
+        config.setValueCodec("secret", new EncryptedValueCodec(KeyProvider.of("k", new byte[16])));
+        // the plain value doesn't stay in the file until the next compaction
+        assertFalse(read(file).contains("hunter2"), read(file));
+
+        YamlConfiguration withoutCodec = new YamlConfiguration(file);
+        withoutCodec.enableJournal(Long.MAX_VALUE);
+        assertTrue(withoutCodec.load());
+        assertNotEquals("hunter2", withoutCodec.getString("secret"));
+
+        config.removeValueCodec("secret");
+        assertTrue(withoutCodec.load());
+        assertEquals("hunter2", withoutCodec.getString("secret"));
+    }
+
+    @Test
+    void failedJournalAppendIsVisible() throws Exception {
+        File file = write("config.yml", "a: 1\n");
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.enableJournal(Long.MAX_VALUE);
+        assertTrue(config.load());
+        // the journal can't be opened once a directory is in its way
+        assertTrue(new File(file.getPath() + ".journal").mkdir());
+        assertThrows(UncheckedIOException.class, () -> config.set("a", 2));
+    }
+
+    @Test
+    void journalReplayFailingOnCycleKeepsPreviousTree() throws Exception {
+        File file = write("config.yml", "x: ok\n");
+        YamlConfiguration writer = new YamlConfiguration(file);
+        writer.enableJournal(Long.MAX_VALUE);
+        assertTrue(writer.load());
+        writer.set("a", "${b}");
+        writer.set("b", "${a}");
+
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.setReferenceResolution(true);
+        assertTrue(config.load());
+        config.enableJournal(Long.MAX_VALUE);
+        assertFalse(config.load());
+        assertEquals(List.of("x"), new ArrayList<>(config.keySet()));
+        assertEquals("ok", config.getString("x"));
+    }
+
+    @Test
+    void failedLoadKeepsPreviousComments() throws Exception {
+        File file = write("config.yml", "# kept\nx: ok\n");
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.setReferenceResolution(true);
+        assertTrue(config.load());
+
+        write("config.yml", "# from the rejected file\na: ${b}\nb: ${a}\n");
+        assertFalse(config.load());
+        config.save();
+        String saved = read(file);
+        assertTrue(saved.contains("# kept"), saved);
+        assertFalse(saved.contains("rejected"), saved);
+    }
+
+    @Test
+    void journalReplayKeepsValueTypes() throws Exception {
+        File file = write("config.yml", "created: 2020-01-02T03:04:05Z\n");
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.enableJournal(Long.MAX_VALUE);
+        assertTrue(config.load());
+        Date created = (Date) config.get("created");
+        config.set("port", 6);
+        config.set("big", 12345678901L);
+        config.set("ratio", 0.5f);
+        config.set("created", created);
+        config.set("db", Map.of("port", 7, "hosts", List.of("a", 8)));
+
+        YamlConfiguration restarted = new YamlConfiguration(file);
+        restarted.enableJournal(Long.MAX_VALUE);
+        assertTrue(restarted.load());
+        assertEquals(6, restarted.getOrDefault("port", 0));
+        assertEquals(12345678901L, restarted.get("big"));
+        assertEquals(0.5f, restarted.get("ratio"));
+        assertEquals(created, restarted.get("created"));
+        assertEquals(7, restarted.get("db.port"));
+        assertEquals(List.of("a", 8), restarted.get("db.hosts"));
+    }
+
+    @Test
+    void concurrentCompactionsKeepNewestSnapshot() throws Exception {
+        File file = write("config.yml", "");
+        YamlConfiguration config = new YamlConfiguration(file);
+        config.enableJournal(Long.MAX_VALUE);
+        assertTrue(config.load());
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int id = t;
+            threads.add(new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    config.set("k" + id + "_" + i, i);
+                    config.compact();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        // the file alone, without the journal, holds every change
+        YamlConfiguration snapshot = new YamlConfiguration(file);
+        assertTrue(snapshot.load());
+        assertEquals(200, snapshot.keySet().size());
+        assertArrayEquals(new String[0], dir.list((d, name) -> name.endsWith(".tmp")));
+    }
+}